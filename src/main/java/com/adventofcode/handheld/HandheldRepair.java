@@ -0,0 +1,84 @@
+package com.adventofcode.handheld;
+
+/**
+ * Finds the single jmp / nop flip that makes a looping program terminate, in linear time: the instructions that reach
+ * the end are marked once on the reverse control-flow graph, then the original execution path is walked until an
+ * instruction whose flipped successor lands in that set.
+ */
+public final class HandheldRepair {
+    private HandheldRepair() {
+    }
+
+    /**
+     * Returns the index of the instruction to flip, or -1 if no single flip makes the program terminate.
+     */
+    public static int findFlip(HandheldVm vm) {
+        int size = vm.size();
+        boolean[] terminates = terminatingInstructions(vm);
+
+        boolean[] visited = new boolean[size];
+        int position = 0;
+        while (position >= 0 && position < size && !visited[position]) {
+            visited[position] = true;
+            byte op = vm.op(position);
+            if (op != HandheldVm.ACC) {
+                int flipped = op == HandheldVm.JMP ? position + 1 : position + vm.arg(position);
+                if (flipped >= size || (flipped >= 0 && terminates[flipped])) {
+                    return position;
+                }
+            }
+            position = successor(vm, position);
+        }
+        return -1;
+    }
+
+    /**
+     * Marks the instructions from which the unmodified program terminates.
+     */
+    static boolean[] terminatingInstructions(HandheldVm vm) {
+        int size = vm.size();
+
+        // Reverse edges in CSR form, node size standing for termination
+        int[] offsets = new int[size + 2];
+        for (int i = 0; i < size; i++) {
+            int next = successor(vm, i);
+            if (next >= 0) {
+                offsets[Math.min(next, size) + 1]++;
+            }
+        }
+        for (int i = 0; i <= size; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] fill = new int[size + 1];
+        int[] predecessors = new int[offsets[size + 1]];
+        for (int i = 0; i < size; i++) {
+            int next = successor(vm, i);
+            if (next >= 0) {
+                int target = Math.min(next, size);
+                predecessors[offsets[target] + fill[target]++] = i;
+            }
+        }
+
+        boolean[] terminates = new boolean[size + 1];
+        int[] queue = new int[size + 1];
+        int head = 0;
+        int tail = 0;
+        terminates[size] = true;
+        queue[tail++] = size;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int predecessor = predecessors[e];
+                if (!terminates[predecessor]) {
+                    terminates[predecessor] = true;
+                    queue[tail++] = predecessor;
+                }
+            }
+        }
+        return terminates;
+    }
+
+    private static int successor(HandheldVm vm, int index) {
+        return vm.op(index) == HandheldVm.JMP ? index + vm.arg(index) : index + 1;
+    }
+}
@@ -0,0 +1,147 @@
+package com.adventofcode.handheld;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Handheld game console program decoded once into parallel op / arg arrays.
+ */
+public class HandheldVm {
+    public static final byte ACC = 0;
+    public static final byte JMP = 1;
+    public static final byte NOP = 2;
+
+    private final byte[] op;
+    private final int[] arg;
+    private final long[] visited;
+
+    private int position;
+    private long accumulator;
+
+    public HandheldVm(byte[] op, int[] arg) {
+        if (op.length != arg.length) {
+            throw new IllegalStateException("Op and arg sizes differ: " + op.length + " != " + arg.length);
+        }
+        this.op = op;
+        this.arg = arg;
+        this.visited = new long[(op.length + 63) >>> 6];
+    }
+
+    public static HandheldVm compile(List<String> program) {
+        int size = program.size();
+        byte[] op = new byte[size];
+        int[] arg = new int[size];
+        for (int i = 0; i < size; i++) {
+            String line = program.get(i);
+            op[i] = decode(line);
+            arg[i] = Integer.parseInt(line, 4, line.length(), 10);
+        }
+        return new HandheldVm(op, arg);
+    }
+
+    private static byte decode(String line) {
+        if (line.startsWith("acc ")) {
+            return ACC;
+        } else if (line.startsWith("jmp ")) {
+            return JMP;
+        } else if (line.startsWith("nop ")) {
+            return NOP;
+        }
+        throw new IllegalStateException("Unknown instruction: " + line);
+    }
+
+    public int size() {
+        return op.length;
+    }
+
+    public byte op(int index) {
+        return op[index];
+    }
+
+    public int arg(int index) {
+        return arg[index];
+    }
+
+    /**
+     * Swaps a jmp for a nop or a nop for a jmp.
+     */
+    public void flip(int index) {
+        switch (op[index]) {
+            case JMP -> op[index] = NOP;
+            case NOP -> op[index] = JMP;
+            default -> throw new IllegalStateException("Cannot flip instruction " + index);
+        }
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public long accumulator() {
+        return accumulator;
+    }
+
+    public boolean isTerminated() {
+        return position >= op.length;
+    }
+
+    public void reset() {
+        position = 0;
+        accumulator = 0;
+        Arrays.fill(visited, 0);
+    }
+
+    /**
+     * Executes the instruction at the current position and returns false if the program has already terminated.
+     */
+    public boolean step() {
+        if (position >= op.length) {
+            return false;
+        }
+        if (position < 0) {
+            throw new IllegalStateException("Jump out of program: " + position);
+        }
+
+        switch (op[position]) {
+            case ACC -> {
+                accumulator += arg[position];
+                position++;
+            }
+            case JMP -> position += arg[position];
+            default -> position++;
+        }
+        return true;
+    }
+
+    /**
+     * Runs until the program terminates or is about to execute an instruction for the second time, and returns
+     * whether it terminated.
+     */
+    public boolean runUntilLoop() {
+        while (position < op.length) {
+            if (position < 0) {
+                throw new IllegalStateException("Jump out of program: " + position);
+            }
+            long bit = 1L << position;
+            int word = position >>> 6;
+            if ((visited[word] & bit) != 0) {
+                return false;
+            }
+            visited[word] |= bit;
+            step();
+        }
+        return true;
+    }
+
+    /**
+     * Runs until the program terminates, failing after maxSteps instructions.
+     */
+    public void runToCompletion(long maxSteps) {
+        for (long steps = 0; position < op.length; steps++) {
+            if (steps >= maxSteps) {
+                throw new IllegalStateException("Program did not terminate after " + maxSteps + " steps");
+            }
+            step();
+        }
+    }
+}
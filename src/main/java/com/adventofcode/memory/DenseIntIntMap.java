@@ -0,0 +1,103 @@
+package com.adventofcode.memory;
+
+import java.util.Arrays;
+
+/**
+ * Array-backed {@link IntIntMap} for small, non-negative keys. Absent slots hold the missing value, so that value
+ * cannot be stored.
+ */
+public class DenseIntIntMap implements IntIntMap {
+    private final int missingValue;
+    private int[] mem;
+    private int size;
+
+    public DenseIntIntMap(int missingValue) {
+        this(10, missingValue);
+    }
+
+    public DenseIntIntMap(int capacity, int missingValue) {
+        this.missingValue = missingValue;
+        this.mem = new int[capacity];
+        Arrays.fill(mem, missingValue);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return getInt(key) != missingValue;
+    }
+
+    @Override
+    public int getInt(int key) {
+        if (key < 0) {
+            throw new IllegalStateException("Negative key are not allowed: " + key);
+        }
+
+        return key < mem.length ? mem[key] : missingValue;
+    }
+
+    @Override
+    public int putInt(int key, int value) {
+        if (key < 0) {
+            throw new IllegalStateException("Negative key are not allowed: " + key);
+        }
+        if (value == missingValue) {
+            throw new IllegalStateException("Missing value cannot be stored: " + value);
+        }
+        if (key >= mem.length) {
+            grow(key);
+        }
+
+        int last = mem[key];
+        mem[key] = value;
+        if (last == missingValue) {
+            size++;
+        }
+        return last;
+    }
+
+    @Override
+    public int remove(int key) {
+        if (key < 0) {
+            throw new IllegalStateException("Negative key are not allowed: " + key);
+        }
+        if (key >= mem.length) {
+            return missingValue;
+        }
+
+        int last = mem[key];
+        if (last != missingValue) {
+            mem[key] = missingValue;
+            size--;
+        }
+        return last;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(mem, missingValue);
+        size = 0;
+    }
+
+    @Override
+    public int missingValue() {
+        return missingValue;
+    }
+
+    private void grow(int minCapacity) {
+        int oldLength = mem.length;
+        int newLength = Math.max(oldLength * 2, minCapacity + 1);
+
+        mem = Arrays.copyOf(mem, newLength);
+        Arrays.fill(mem, oldLength, newLength, missingValue);
+    }
+}
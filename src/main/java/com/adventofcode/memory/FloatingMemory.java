@@ -0,0 +1,128 @@
+package com.adventofcode.memory;
+
+import java.util.Arrays;
+
+/**
+ * Memory written through floating address masks. Each write is kept as a region (fixed address bits, floating bits,
+ * value) and never expanded; {@link #sum()} replays the regions in reverse order, subtracting from each one the
+ * regions written after it.
+ */
+public class FloatingMemory {
+    private long[] addresses;
+    private long[] floatings;
+    private long[] values;
+    private int size;
+
+    private long[] pieceAddresses = new long[16];
+    private long[] pieceFloatings = new long[16];
+    private long[] nextAddresses = new long[16];
+    private long[] nextFloatings = new long[16];
+
+    public FloatingMemory() {
+        this(16);
+    }
+
+    public FloatingMemory(int capacity) {
+        addresses = new long[capacity];
+        floatings = new long[capacity];
+        values = new long[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Writes value to every address matching address on the fixed bits, whatever the floating bits are.
+     */
+    public void write(long address, long floating, long value) {
+        if (size == addresses.length) {
+            int newLength = Math.max(addresses.length * 2, 16);
+            addresses = Arrays.copyOf(addresses, newLength);
+            floatings = Arrays.copyOf(floatings, newLength);
+            values = Arrays.copyOf(values, newLength);
+        }
+
+        addresses[size] = address & ~floating;
+        floatings[size] = floating;
+        values[size] = value;
+        size++;
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = size - 1; i >= 0; --i) {
+            if (values[i] != 0) {
+                sum += values[i] * uncovered(i);
+            }
+        }
+        return sum;
+    }
+
+    private long uncovered(int index) {
+        int pieces = 1;
+        pieceAddresses[0] = addresses[index];
+        pieceFloatings[0] = floatings[index];
+
+        for (int j = index + 1; j < size && pieces > 0; ++j) {
+            long address = addresses[j];
+            long floating = floatings[j];
+
+            int next = 0;
+            for (int p = 0; p < pieces; ++p) {
+                next = subtract(next, pieceAddresses[p], pieceFloatings[p], address, floating);
+            }
+
+            long[] swap = pieceAddresses;
+            pieceAddresses = nextAddresses;
+            nextAddresses = swap;
+            swap = pieceFloatings;
+            pieceFloatings = nextFloatings;
+            nextFloatings = swap;
+            pieces = next;
+        }
+
+        long uncovered = 0;
+        for (int p = 0; p < pieces; ++p) {
+            uncovered += 1L << Long.bitCount(pieceFloatings[p]);
+        }
+        return uncovered;
+    }
+
+    /**
+     * Appends to the next buffer the disjoint pieces of the piece region minus the (address, floating) region.
+     */
+    private int subtract(int next, long pieceAddress, long pieceFloating, long address, long floating) {
+        if (((pieceAddress ^ address) & ~pieceFloating & ~floating) != 0) {
+            ensureNext(next + 1);
+            nextAddresses[next] = pieceAddress;
+            nextFloatings[next] = pieceFloating;
+            return next + 1;
+        }
+
+        long split = pieceFloating & ~floating;
+        ensureNext(next + Long.bitCount(split));
+        while (split != 0) {
+            long bit = Long.lowestOneBit(split);
+            pieceFloating &= ~bit;
+            nextAddresses[next] = pieceAddress | (~address & bit);
+            nextFloatings[next] = pieceFloating;
+            next++;
+            pieceAddress |= address & bit;
+            split &= ~bit;
+        }
+        return next;
+    }
+
+    private void ensureNext(int capacity) {
+        if (capacity > nextAddresses.length) {
+            int newLength = Math.max(nextAddresses.length * 2, capacity);
+            nextAddresses = Arrays.copyOf(nextAddresses, newLength);
+            nextFloatings = Arrays.copyOf(nextFloatings, newLength);
+        }
+    }
+}
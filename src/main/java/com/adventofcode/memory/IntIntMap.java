@@ -0,0 +1,33 @@
+package com.adventofcode.memory;
+
+public interface IntIntMap {
+    int size();
+
+    boolean isEmpty();
+
+    boolean containsKey(int key);
+
+    /**
+     * Returns the value mapped to key, or {@link #missingValue()} if there is none.
+     */
+    int getInt(int key);
+
+    /**
+     * Maps key to value and returns the previous value, or {@link #missingValue()} if there was none.
+     */
+    int putInt(int key, int value);
+
+    /**
+     * Removes the mapping of key and returns its value, or {@link #missingValue()} if there was none.
+     */
+    int remove(int key);
+
+    void clear();
+
+    int missingValue();
+
+    default int getOrDefault(int key, int defaultValue) {
+        int v = getInt(key);
+        return v != missingValue() ? v : defaultValue;
+    }
+}
@@ -0,0 +1,47 @@
+package com.adventofcode.memory;
+
+public interface LongLongMap {
+    int size();
+
+    boolean isEmpty();
+
+    boolean containsKey(long key);
+
+    /**
+     * Returns the value mapped to key, or {@link #missingValue()} if there is none.
+     */
+    long getLong(long key);
+
+    /**
+     * Maps key to value and returns the previous value, or {@link #missingValue()} if there was none.
+     */
+    long putLong(long key, long value);
+
+    /**
+     * Adds delta to the value mapped to key, an absent key counting as 0, and returns the new value.
+     */
+    long addLong(long key, long delta);
+
+    /**
+     * Removes key and returns its value, or {@link #missingValue()} if there was none.
+     */
+    long remove(long key);
+
+    void clear();
+
+    long missingValue();
+
+    long sum();
+
+    void forEach(LongLongConsumer consumer);
+
+    default long getOrDefault(long key, long defaultValue) {
+        long v = getLong(key);
+        return v != missingValue() ? v : defaultValue;
+    }
+
+    @FunctionalInterface
+    interface LongLongConsumer {
+        void accept(long key, long value);
+    }
+}
@@ -0,0 +1,249 @@
+package com.adventofcode.memory;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing {@link LongLongMap} with linear probing, for 64-bit address spaces. The missing value cannot be
+ * stored.
+ */
+public class LongMemory implements LongLongMap {
+    private static final long FREE_KEY = 0;
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final long missingValue;
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int threshold;
+    private int size;
+
+    private boolean hasFreeKey;
+    private long freeValue;
+
+    public LongMemory() {
+        this(16, Long.MIN_VALUE);
+    }
+
+    public LongMemory(int expectedSize, long missingValue) {
+        this.missingValue = missingValue;
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(long key) {
+        return getLong(key) != missingValue;
+    }
+
+    @Override
+    public long getLong(long key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeValue : missingValue;
+        }
+
+        int index = hash(key) & mask;
+        long k;
+        while ((k = keys[index]) != FREE_KEY) {
+            if (k == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    @Override
+    public long putLong(long key, long value) {
+        if (value == missingValue) {
+            throw new IllegalStateException("Missing value cannot be stored: " + value);
+        }
+
+        if (key == FREE_KEY) {
+            long last = hasFreeKey ? freeValue : missingValue;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeValue = value;
+            return last;
+        }
+
+        int index = hash(key) & mask;
+        long k;
+        while ((k = keys[index]) != FREE_KEY) {
+            if (k == key) {
+                long last = values[index];
+                values[index] = value;
+                return last;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        if (++size >= threshold) {
+            grow();
+        }
+        return missingValue;
+    }
+
+    @Override
+    public long addLong(long key, long delta) {
+        if (key == FREE_KEY) {
+            long value = hasFreeKey ? freeValue + delta : delta;
+            putLong(key, value);
+            return value;
+        }
+
+        int index = hash(key) & mask;
+        long k;
+        while ((k = keys[index]) != FREE_KEY) {
+            if (k == key) {
+                long value = values[index] + delta;
+                if (value == missingValue) {
+                    throw new IllegalStateException("Missing value cannot be stored: " + value);
+                }
+                values[index] = value;
+                return value;
+            }
+            index = (index + 1) & mask;
+        }
+
+        putLong(key, delta);
+        return delta;
+    }
+
+    @Override
+    public long remove(long key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                return missingValue;
+            }
+            hasFreeKey = false;
+            size--;
+            return freeValue;
+        }
+
+        int index = hash(key) & mask;
+        long k;
+        while ((k = keys[index]) != FREE_KEY) {
+            if (k == key) {
+                long last = values[index];
+                shiftKeys(index);
+                size--;
+                return last;
+            }
+            index = (index + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        hasFreeKey = false;
+        size = 0;
+    }
+
+    @Override
+    public long missingValue() {
+        return missingValue;
+    }
+
+    @Override
+    public long sum() {
+        long sum = hasFreeKey ? freeValue : 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public void forEach(LongLongConsumer consumer) {
+        if (hasFreeKey) {
+            consumer.accept(FREE_KEY, freeValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Backward-shift deletion: moves the following entries of the probe chain into the freed slot.
+     */
+    private void shiftKeys(int index) {
+        int last = index;
+        int current = (last + 1) & mask;
+        long k;
+        while ((k = keys[current]) != FREE_KEY) {
+            int slot = hash(k) & mask;
+            if (last <= current ? (slot <= last || slot > current) : (slot <= last && slot > current)) {
+                keys[last] = k;
+                values[last] = values[current];
+                last = current;
+            }
+            current = (current + 1) & mask;
+        }
+        keys[last] = FREE_KEY;
+    }
+
+    private void grow() {
+        if (keys.length == MAX_CAPACITY) {
+            throw new IllegalStateException("Memory too large: " + size);
+        }
+        rehash(keys.length * 2);
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int index = hash(key) & mask;
+                while (keys[index] != FREE_KEY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(4L, (long) Math.ceil(expectedSize / LOAD_FACTOR));
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Memory too large: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,200 @@
+package com.adventofcode.memory;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing {@link IntIntMap} with linear probing, for sparse key spaces where a dense array would be too large.
+ * Any key is accepted; the missing value cannot be stored.
+ */
+public class OpenIntIntMap implements IntIntMap {
+    private static final int FREE_KEY = 0;
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final int missingValue;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int threshold;
+    private int size;
+
+    private boolean hasFreeKey;
+    private int freeValue;
+
+    public OpenIntIntMap(int missingValue) {
+        this(16, missingValue);
+    }
+
+    public OpenIntIntMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return getInt(key) != missingValue;
+    }
+
+    @Override
+    public int getInt(int key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeValue : missingValue;
+        }
+
+        int index = hash(key) & mask;
+        int k;
+        while ((k = keys[index]) != FREE_KEY) {
+            if (k == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    @Override
+    public int putInt(int key, int value) {
+        if (value == missingValue) {
+            throw new IllegalStateException("Missing value cannot be stored: " + value);
+        }
+
+        if (key == FREE_KEY) {
+            int last = hasFreeKey ? freeValue : missingValue;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeValue = value;
+            return last;
+        }
+
+        int index = hash(key) & mask;
+        int k;
+        while ((k = keys[index]) != FREE_KEY) {
+            if (k == key) {
+                int last = values[index];
+                values[index] = value;
+                return last;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        if (++size >= threshold) {
+            grow();
+        }
+        return missingValue;
+    }
+
+    @Override
+    public int remove(int key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                return missingValue;
+            }
+            hasFreeKey = false;
+            size--;
+            return freeValue;
+        }
+
+        int index = hash(key) & mask;
+        int k;
+        while ((k = keys[index]) != FREE_KEY) {
+            if (k == key) {
+                int last = values[index];
+                shiftKeys(index);
+                size--;
+                return last;
+            }
+            index = (index + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        hasFreeKey = false;
+        size = 0;
+    }
+
+    @Override
+    public int missingValue() {
+        return missingValue;
+    }
+
+    /**
+     * Backward-shift deletion: moves later entries of the probe chain into the freed slot, so no tombstone is needed.
+     */
+    private void shiftKeys(int index) {
+        int last = index;
+        int current = (last + 1) & mask;
+        int k;
+        while ((k = keys[current]) != FREE_KEY) {
+            int slot = hash(k) & mask;
+            if (last <= current ? (slot <= last || slot > current) : (slot <= last && slot > current)) {
+                keys[last] = k;
+                values[last] = values[current];
+                last = current;
+            }
+            current = (current + 1) & mask;
+        }
+        keys[last] = FREE_KEY;
+    }
+
+    private void grow() {
+        if (keys.length == MAX_CAPACITY) {
+            throw new IllegalStateException("Map too large: " + size);
+        }
+        rehash(keys.length * 2);
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int index = hash(key) & mask;
+                while (keys[index] != FREE_KEY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(4L, (long) Math.ceil(expectedSize / LOAD_FACTOR));
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Map too large: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
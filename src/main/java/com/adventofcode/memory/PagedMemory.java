@@ -0,0 +1,219 @@
+package com.adventofcode.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@link Memory} split in fixed-size pages allocated on first write, so memory use follows the keys actually touched
+ * instead of the largest key. Pages are located through a sparse page directory, and each page counts its entries so
+ * it can be dropped once its last key is removed.
+ */
+public class PagedMemory<V> implements Memory<V> {
+    private static final int DEFAULT_PAGE_BITS = 10;
+
+    private final int pageBits;
+    private final int pageMask;
+
+    private final OpenIntIntMap directory;
+    private int[] pageNumbers;
+    private Object[][] pages;
+    private long[][] present;
+    private int[] occupancy;
+    private int pageCount;
+    private int size;
+
+    public PagedMemory() {
+        this(DEFAULT_PAGE_BITS);
+    }
+
+    public PagedMemory(int pageBits) {
+        if (pageBits < 6 || pageBits > 20) {
+            throw new IllegalStateException("Page bits must be between 6 and 20: " + pageBits);
+        }
+        this.pageBits = pageBits;
+        this.pageMask = (1 << pageBits) - 1;
+        this.directory = new OpenIntIntMap(-1);
+        allocate(4);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        if (key < 0) {
+            throw new IllegalStateException("Negative key are not allowed: " + key);
+        }
+
+        int slot = directory.getInt(key >>> pageBits);
+        if (slot < 0) {
+            return false;
+        }
+        int offset = key & pageMask;
+        return (present[slot][offset >>> 6] & (1L << offset)) != 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key < 0) {
+            throw new IllegalStateException("Negative key are not allowed: " + key);
+        }
+
+        int slot = directory.getInt(key >>> pageBits);
+        if (slot < 0) {
+            return null;
+        }
+        return (V) pages[slot][key & pageMask];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key < 0) {
+            throw new IllegalStateException("Negative key are not allowed: " + key);
+        }
+
+        int page = key >>> pageBits;
+        int slot = directory.getInt(page);
+        if (slot < 0) {
+            slot = newPage(page);
+        }
+
+        int offset = key & pageMask;
+        V last = (V) pages[slot][offset];
+        pages[slot][offset] = value;
+
+        long bit = 1L << offset;
+        long[] bits = present[slot];
+        if ((bits[offset >>> 6] & bit) == 0) {
+            bits[offset >>> 6] |= bit;
+            occupancy[slot]++;
+            size++;
+        }
+        return last;
+    }
+
+    /**
+     * Removes the key and returns its previous value. A page left empty is released.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        if (key < 0) {
+            throw new IllegalStateException("Negative key are not allowed: " + key);
+        }
+
+        int slot = directory.getInt(key >>> pageBits);
+        if (slot < 0) {
+            return null;
+        }
+        int offset = key & pageMask;
+        long bit = 1L << offset;
+        long[] bits = present[slot];
+        if ((bits[offset >>> 6] & bit) == 0) {
+            return null;
+        }
+
+        V last = (V) pages[slot][offset];
+        pages[slot][offset] = null;
+        bits[offset >>> 6] &= ~bit;
+        size--;
+        if (--occupancy[slot] == 0) {
+            dropPage(slot);
+        }
+        return last;
+    }
+
+    @Override
+    public void clear() {
+        directory.clear();
+        allocate(4);
+        size = 0;
+    }
+
+    @Override
+    public int[] keySet() {
+        int[] keys = new int[size];
+        int n = 0;
+        int[] sortedPages = Arrays.copyOf(pageNumbers, pageCount);
+        Arrays.sort(sortedPages);
+        for (int page : sortedPages) {
+            long[] bits = present[directory.getInt(page)];
+            for (int word = 0; word < bits.length; word++) {
+                long w = bits[word];
+                while (w != 0) {
+                    int offset = (word << 6) + Long.numberOfTrailingZeros(w);
+                    keys[n++] = (page << pageBits) | offset;
+                    w &= w - 1;
+                }
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<V> values() {
+        List<V> values = new ArrayList<>(size);
+        for (int key : keySet()) {
+            values.add((V) pages[directory.getInt(key >>> pageBits)][key & pageMask]);
+        }
+        return values;
+    }
+
+    public int pageCount() {
+        return pageCount;
+    }
+
+    private int newPage(int page) {
+        if (pageCount == pages.length) {
+            int newLength = pages.length * 2;
+            pageNumbers = Arrays.copyOf(pageNumbers, newLength);
+            pages = Arrays.copyOf(pages, newLength);
+            present = Arrays.copyOf(present, newLength);
+            occupancy = Arrays.copyOf(occupancy, newLength);
+        }
+
+        int slot = pageCount++;
+        pageNumbers[slot] = page;
+        pages[slot] = new Object[1 << pageBits];
+        present[slot] = new long[(1 << pageBits) >>> 6];
+        directory.putInt(page, slot);
+        return slot;
+    }
+
+    /**
+     * Releases a page by moving the last page into its slot.
+     */
+    private void dropPage(int slot) {
+        directory.remove(pageNumbers[slot]);
+        int lastSlot = --pageCount;
+        if (slot != lastSlot) {
+            pageNumbers[slot] = pageNumbers[lastSlot];
+            pages[slot] = pages[lastSlot];
+            present[slot] = present[lastSlot];
+            occupancy[slot] = occupancy[lastSlot];
+            directory.putInt(pageNumbers[slot], slot);
+        }
+        pages[lastSlot] = null;
+        present[lastSlot] = null;
+        occupancy[lastSlot] = 0;
+    }
+
+    private void allocate(int capacity) {
+        pageNumbers = new int[capacity];
+        pages = new Object[capacity][];
+        present = new long[capacity][];
+        occupancy = new int[capacity];
+        pageCount = 0;
+    }
+}
@@ -0,0 +1,73 @@
+package com.adventofcode.utils;
+
+import java.nio.ByteBuffer;
+import java.util.function.BinaryOperator;
+import java.util.stream.IntStream;
+
+public class ByteBufferUtils {
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    /**
+     * Finds where the next record starts, at or after {@code from}, or returns {@code end}.
+     */
+    @FunctionalInterface
+    public interface Boundary {
+        int next(ByteBuffer buffer, int from, int end);
+    }
+
+    /**
+     * Reduces the records found between {@code start} and {@code end}.
+     */
+    @FunctionalInterface
+    public interface ChunkReducer<T> {
+        T reduce(ByteBuffer buffer, int start, int end);
+    }
+
+    /**
+     * Reduces the buffer between its position and limit, reading it in place. Buffers above
+     * {@link #PARALLEL_THRESHOLD} bytes are split on record boundaries and their chunks reduced in parallel.
+     */
+    public static <T> T reduceChunks(ByteBuffer buffer, Boundary boundary, ChunkReducer<T> reducer, T identity,
+                                     BinaryOperator<T> combiner) {
+        int start = buffer.position();
+        int end = buffer.limit();
+        if (end - start < PARALLEL_THRESHOLD) {
+            return reducer.reduce(buffer, start, end);
+        }
+
+        int chunks = Runtime.getRuntime().availableProcessors() * 4;
+        int[] bounds = chunkBounds(buffer, boundary, chunks);
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(i -> reducer.reduce(buffer, bounds[i], bounds[i + 1]))
+                .reduce(identity, combiner);
+    }
+
+    /**
+     * Splits the buffer between its position and limit into {@code chunks} ranges of about the same size, each one
+     * starting on a record boundary. Range {@code i} goes from {@code bounds[i]} to {@code bounds[i + 1]}.
+     */
+    public static int[] chunkBounds(ByteBuffer buffer, Boundary boundary, int chunks) {
+        int start = buffer.position();
+        int end = buffer.limit();
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = start;
+        for (int i = 1; i < chunks; i++) {
+            bounds[i] = boundary.next(buffer, Math.max(bounds[i - 1], start + (int) ((long) (end - start) * i / chunks)), end);
+        }
+        bounds[chunks] = end;
+        return bounds;
+    }
+
+    /**
+     * Start of the line following the first line break at or after {@code from}.
+     */
+    public static int nextLine(ByteBuffer buffer, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+}
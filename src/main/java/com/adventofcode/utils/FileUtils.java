@@ -2,9 +2,12 @@ package com.adventofcode.utils;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class FileUtils {
     public static List<String> readLines(String file) throws IOException {
@@ -15,6 +18,18 @@ public class FileUtils {
         return lines;
     }
 
+    public static void forEachLine(String file, Consumer<String> consumer) throws IOException {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(FileUtils.class.getResourceAsStream(file)))) {
+            br.lines().forEach(consumer);
+        }
+    }
+
+    public static ByteBuffer readBytes(String file) throws IOException {
+        try (InputStream is = FileUtils.class.getResourceAsStream(file)) {
+            return ByteBuffer.wrap(is.readAllBytes());
+        }
+    }
+
     public static String readLine(String file) throws IOException {
         try (BufferedReader br = new BufferedReader(new InputStreamReader(FileUtils.class.getResourceAsStream(file)))) {
             return br.readLine();
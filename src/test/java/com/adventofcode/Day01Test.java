@@ -1,43 +1,129 @@
 package com.adventofcode;
 
+import com.adventofcode.memory.LongMemory;
 import com.adventofcode.utils.FileUtils;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class Day01Test {
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
+
     public static long reportRepair2(long[] report) {
-        for (int i = 0; i < report.length; i++) {
-            for (int j = i + 1; j < report.length; j++) {
-                if (report[i] + report[j] == 2020) {
-                    return report[i] * report[j];
-                }
-            }
+        return product(kSum(report, 2, 2020));
+    }
+
+    public static long reportRepair3(long[] report) {
+        return product(kSum(report, 3, 2020));
+    }
+
+    private static long product(long[] values) {
+        if (values.length == 0) {
+            return -1;
         }
 
-        return -1;
+        long product = 1;
+        for (long value : values) {
+            product *= value;
+        }
+        return product;
     }
 
-    public static long reportRepair3(long[] report) {
-        for (int i = 0; i < report.length; i++) {
-            for (int j = i + 1; j < report.length; j++) {
-                if (report[i] + report[j] > 2020) {
-                    continue;
+    /**
+     * Returns k values taken at distinct positions of values and summing to target, or an empty array if there are
+     * none.
+     */
+    public static long[] kSum(long[] values, int k, long target) {
+        if (k < 1 || k > values.length) {
+            return new long[0];
+        }
+        if (k == 1) {
+            for (long value : values) {
+                if (value == target) {
+                    return new long[]{value};
                 }
-                for (int k = j + 1; k < report.length; k++) {
-                    if (report[i] + report[j] + report[k] == 2020) {
-                        return report[i] * report[j] * report[k];
-                    }
+            }
+            return new long[0];
+        }
+        if (k == 2) {
+            LongMemory seen = new LongMemory(values.length, Long.MIN_VALUE);
+            for (long value : values) {
+                if (seen.containsKey(target - value)) {
+                    return new long[]{target - value, value};
                 }
+                seen.putLong(value, 1);
             }
+            return new long[0];
         }
 
-        return -1;
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        if (sorted.length < PARALLEL_THRESHOLD) {
+            long[] result = new long[k];
+            return kSumSorted(sorted, 0, k, target, result, 0) ? result : new long[0];
+        }
+
+        return IntStream.rangeClosed(0, sorted.length - k)
+                .parallel()
+                .filter(i -> (i == 0 || sorted[i] != sorted[i - 1]) && !exceedsShare(sorted[i], k, target))
+                .mapToObj(i -> {
+                    long[] result = new long[k];
+                    result[0] = sorted[i];
+                    return kSumSorted(sorted, i + 1, k - 1, target - sorted[i], result, 1) ? result : null;
+                })
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(new long[0]);
     }
 
+    /**
+     * Whether {@code value * k > target}, without overflowing for large values. Entries are sorted, so once the
+     * smallest remaining one exceeds its share of the target, no k of them can sum to it.
+     */
+    private static boolean exceedsShare(long value, int k, long target) {
+        return value > Math.floorDiv(target, k);
+    }
+
+    private static boolean kSumSorted(long[] sorted, int from, int k, long target, long[] result, int depth) {
+        if (k == 2) {
+            int low = from;
+            int high = sorted.length - 1;
+            while (low < high) {
+                long sum = sorted[low] + sorted[high];
+                if (sum == target) {
+                    result[depth] = sorted[low];
+                    result[depth + 1] = sorted[high];
+                    return true;
+                } else if (sum < target) {
+                    low++;
+                } else {
+                    high--;
+                }
+            }
+            return false;
+        }
+
+        for (int i = from; i <= sorted.length - k; i++) {
+            if (i > from && sorted[i] == sorted[i - 1]) {
+                continue;
+            }
+            if (exceedsShare(sorted[i], k, target)) {
+                break;
+            }
+            result[depth] = sorted[i];
+            if (kSumSorted(sorted, i + 1, k - 1, target - sorted[i], result, depth + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     @Test
     void testReportRepair() {
@@ -48,6 +134,42 @@ public class Day01Test {
         assertThat(reportRepair2(report)).isEqualTo(514579);
         assertThat(reportRepair3(report)).isEqualTo(241861950);
 
+        assertThat(kSum(report, 4, 1721 + 979 + 366 + 299)).containsExactlyInAnyOrder(1721L, 979L, 366L, 299L);
+        assertThat(kSum(report, 2, 4040)).isEmpty();
+        assertThat(kSum(new long[]{1010, 5}, 2, 2020)).isEmpty();
+        assertThat(kSum(new long[]{1010, 5, 1010}, 2, 2020)).containsExactly(1010L, 1010L);
+    }
+
+    @Test
+    void testLargeMagnitudeReportRepair() {
+        // -4e18 * 3 overflows to a positive value, which must not prune the only candidate
+        long[] report = new long[]{3_000_000_000_000_000_000L, -4_000_000_000_000_000_000L, 3_000_000_000_000_000_000L};
+        long target = 2_000_000_000_000_000_000L;
+        assertThat(kSum(report, 3, target)).containsExactlyInAnyOrder(-4_000_000_000_000_000_000L,
+                3_000_000_000_000_000_000L, 3_000_000_000_000_000_000L);
+
+        // Same report padded past the parallel threshold
+        long[] padded = Arrays.copyOf(report, 10_000);
+        for (int i = report.length; i < padded.length; i++) {
+            padded[i] = 1_000_000_000_000L + i;
+        }
+        assertThat(kSum(padded, 3, target)).containsExactlyInAnyOrder(-4_000_000_000_000_000_000L,
+                3_000_000_000_000_000_000L, 3_000_000_000_000_000_000L);
+    }
+
+    @Test
+    void testLargeReportRepair() {
+        Random random = new Random(2020);
+        long[] report = new long[2_000_000];
+        for (int i = 0; i < report.length; i++) {
+            report[i] = 3 + 4L * random.nextInt(1_000_000_000);
+        }
+        report[1_234_567] = 1;
+        report[42] = 2;
+        report[1_999_999] = 5;
+
+        assertThat(kSum(report, 2, 7)).containsExactlyInAnyOrder(2L, 5L);
+        assertThat(kSum(report, 3, 8)).containsExactlyInAnyOrder(1L, 2L, 5L);
     }
 
     /**
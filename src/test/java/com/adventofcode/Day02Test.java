@@ -1,48 +1,118 @@
 package com.adventofcode;
 
+import com.adventofcode.utils.ByteBufferFixtures;
+import com.adventofcode.utils.ByteBufferUtils;
 import com.adventofcode.utils.FileUtils;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class Day02Test {
-    public static boolean passwordPolicy1(String policy) {
-        Pattern pattern = Pattern.compile("(\\d+)-(\\d+) (\\w): (\\w*)");
-        Matcher matcher = pattern.matcher(policy);
-        if (matcher.find()) {
-            long minCount = Long.parseLong(matcher.group(1));
-            long maxCount = Long.parseLong(matcher.group(2));
-            char character = matcher.group(3).charAt(0);
-            String password = matcher.group(4);
-
-            long count = password.chars().filter(c -> c == character).count();
-            return count >= minCount && count <= maxCount;
-        }
+    private static final int POLICY1 = 1;
+    private static final int POLICY2 = 2;
+    private static final int MAX_DIGITS = 9;
 
-        return false;
+    public static boolean passwordPolicy1(String policy) {
+        return auditPasswords(ByteBuffer.wrap(policy.getBytes(StandardCharsets.US_ASCII))).policy1() == 1;
     }
 
     public static boolean passwordPolicy2(String policy) {
-        Pattern pattern = Pattern.compile("(\\d+)-(\\d+) (\\w): (\\w*)");
-        Matcher matcher = pattern.matcher(policy);
-        if (matcher.find()) {
-            int position1 = Integer.parseInt(matcher.group(1));
-            int position2 = Integer.parseInt(matcher.group(2));
-            char character = matcher.group(3).charAt(0);
-            String password = matcher.group(4);
-
-            boolean test1 = password.charAt(position1 - 1) == character;
-            boolean test2 = password.charAt(position2 - 1) == character;
-
-            return test1 != test2;
+        return auditPasswords(ByteBuffer.wrap(policy.getBytes(StandardCharsets.US_ASCII))).policy2() == 1;
+    }
+
+    /**
+     * Counts the lines matching each policy, reading the buffer in place between its position and limit. Large
+     * buffers are split on line boundaries and audited in parallel.
+     */
+    public static PasswordAudit auditPasswords(ByteBuffer buffer) {
+        return ByteBufferUtils.reduceChunks(buffer, ByteBufferUtils::nextLine, Day02Test::auditPasswords,
+                new PasswordAudit(0, 0), PasswordAudit::add);
+    }
+
+    private static PasswordAudit auditPasswords(ByteBuffer buffer, int start, int end) {
+        long policy1 = 0;
+        long policy2 = 0;
+        int i = start;
+        while (i < end) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                i++;
+                continue;
+            }
+
+            int lineEnd = i;
+            while (lineEnd < end && (b = buffer.get(lineEnd)) != '\n' && b != '\r') {
+                lineEnd++;
+            }
+            int result = auditLine(buffer, i, lineEnd);
+            policy1 += result & POLICY1;
+            policy2 += (result & POLICY2) >>> 1;
+            i = lineEnd;
+        }
+        return new PasswordAudit(policy1, policy2);
+    }
+
+    /**
+     * Audits a single {@code N-M c: password} line, returning which policies it matches. A malformed line matches
+     * neither.
+     */
+    private static int auditLine(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        int first = 0;
+        int digits = 0;
+        byte b;
+        while (i < end && (b = buffer.get(i)) >= '0' && b <= '9' && digits < MAX_DIGITS) {
+            first = first * 10 + (b - '0');
+            digits++;
+            i++;
+        }
+        if (digits == 0 || i >= end || buffer.get(i) != '-') {
+            return 0;
+        }
+        i++;
+        int second = 0;
+        digits = 0;
+        while (i < end && (b = buffer.get(i)) >= '0' && b <= '9' && digits < MAX_DIGITS) {
+            second = second * 10 + (b - '0');
+            digits++;
+            i++;
+        }
+        if (digits == 0 || end - i < 4 || buffer.get(i) != ' ' || buffer.get(i + 2) != ':' || buffer.get(i + 3) != ' ') {
+            return 0;
+        }
+        byte character = buffer.get(i + 1);
+        i += 4;
+
+        int passwordStart = i;
+        int count = 0;
+        for (; i < end; i++) {
+            if (buffer.get(i) == character) {
+                count++;
+            }
         }
+        int length = end - passwordStart;
 
-        return false;
+        int result = 0;
+        if (count >= first && count <= second) {
+            result |= POLICY1;
+        }
+        boolean test1 = first >= 1 && first <= length && buffer.get(passwordStart + first - 1) == character;
+        boolean test2 = second >= 1 && second <= length && buffer.get(passwordStart + second - 1) == character;
+        if (test1 != test2) {
+            result |= POLICY2;
+        }
+        return result;
+    }
+
+    public record PasswordAudit(long policy1, long policy2) {
+        PasswordAudit add(PasswordAudit other) {
+            return new PasswordAudit(policy1 + other.policy1, policy2 + other.policy2);
+        }
     }
 
     @Test
@@ -54,6 +124,39 @@ public class Day02Test {
         assertThat(passwordPolicy2("1-3 a: abcde")).isTrue();
         assertThat(passwordPolicy2("1-3 b: cdefg")).isFalse();
         assertThat(passwordPolicy2("2-9 c: ccccccccc")).isFalse();
+
+        ByteBuffer buffer = ByteBuffer.wrap("1-3 a: abcde\n1-3 b: cdefg\r\n2-9 c: ccccccccc\n".getBytes(StandardCharsets.US_ASCII));
+        assertThat(auditPasswords(buffer)).isEqualTo(new PasswordAudit(2, 1));
+    }
+
+    @Test
+    void testMalformedPasswordPolicy() {
+        assertThat(passwordPolicy1("1-3 a abcde")).isFalse();
+        assertThat(passwordPolicy1("a-3 a: abcde")).isFalse();
+        assertThat(passwordPolicy1("1-3")).isFalse();
+        assertThat(passwordPolicy2("1-")).isFalse();
+        assertThat(passwordPolicy1("99999999999-3 a: abcde")).isFalse();
+
+        ByteBuffer buffer = ByteBuffer.wrap("1-3 a: abcde\nnot a policy\n1-3 b: cdefg\n2-9 c: ccccccccc\n".getBytes(StandardCharsets.US_ASCII));
+        assertThat(auditPasswords(buffer)).isEqualTo(new PasswordAudit(2, 1));
+    }
+
+    @Test
+    void testBlankPasswordPolicy() {
+        assertThat(passwordPolicy1("   ")).isFalse();
+        assertThat(passwordPolicy2("   ")).isFalse();
+
+        ByteBuffer buffer = ByteBuffer.wrap("1-3 a: abcde\n \t \n1-3 b: cdefg\n    ".getBytes(StandardCharsets.US_ASCII));
+        assertThat(auditPasswords(buffer)).isEqualTo(new PasswordAudit(1, 1));
+    }
+
+    @Test
+    void testLargePasswordAudit() {
+        byte[] block = "1-3 a: abcde\n1-3 b: cdefg\n2-9 c: ccccccccc\n10-12 z: zzzzzzzzzzzzzzz\n".getBytes(StandardCharsets.US_ASCII);
+        int repeat = 100_000;
+        ByteBuffer buffer = ByteBufferFixtures.repeat(block, repeat);
+
+        assertThat(auditPasswords(buffer)).isEqualTo(new PasswordAudit(2L * repeat, repeat));
     }
 
     /**
@@ -124,6 +227,9 @@ public class Day02Test {
 
         assertThat(lines.stream().filter(Day02Test::passwordPolicy2).count())
                 .isEqualTo(673);
+
+        assertThat(auditPasswords(FileUtils.readBytes("/day/2/input")))
+                .isEqualTo(new PasswordAudit(655, 673));
     }
 
 }
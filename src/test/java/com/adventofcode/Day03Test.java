@@ -4,37 +4,24 @@ import com.adventofcode.utils.FileUtils;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class Day03Test {
-    public static long tobogganTrajectory(List<String> map, int right, int down) {
-        int taille = map.get(0).length();
-        int count = 0;
-        int position = 0;
-        for (int i = 0; i < map.size(); i += down) {
-            String line = map.get(i);
-            if (line.charAt(position) == '#') {
-                count++;
-            }
-
-            position += right;
-            position %= taille;
-        }
+    private static final int[][] ALL_SLOPES = {{1, 1}, {3, 1}, {5, 1}, {7, 1}, {1, 2}};
 
-        return count;
+    public static long tobogganTrajectory(List<String> map, int right, int down) {
+        TobogganScanner scanner = new TobogganScanner(new int[][]{{right, down}});
+        map.forEach(scanner::accept);
+        return scanner.trees()[0];
     }
 
     public static long checkAllTobogganTrajectories(List<String> map) {
-        long result = 1;
-        result *= tobogganTrajectory(map, 1, 1);
-        result *= tobogganTrajectory(map, 3, 1);
-        result *= tobogganTrajectory(map, 5, 1);
-        result *= tobogganTrajectory(map, 7, 1);
-        result *= tobogganTrajectory(map, 1, 2);
-
-        return result;
+        TobogganScanner scanner = new TobogganScanner(ALL_SLOPES);
+        map.forEach(scanner::accept);
+        return scanner.product();
     }
 
     @Test
@@ -59,6 +46,9 @@ public class Day03Test {
 
         assertThat(checkAllTobogganTrajectories(map)).isEqualTo(336);
 
+        TobogganScanner scanner = new TobogganScanner(new int[][]{{1, 1}, {3, 1}, {5, 1}, {7, 1}, {1, 2}, {0, 1}, {11, 1}, {14, 3}});
+        map.forEach(scanner::accept);
+        assertThat(scanner.trees()).containsExactly(2, 7, 3, 4, 2, 3, 3, 0);
     }
     /**
      * --- Day 3: Toboggan Trajectory ---
@@ -159,5 +149,73 @@ public class Day03Test {
                 .isEqualTo(234);
 
         assertThat(checkAllTobogganTrajectories(lines)).isEqualTo(5813773056L);
+
+        TobogganScanner scanner = new TobogganScanner(ALL_SLOPES);
+        FileUtils.forEachLine("/day/3/input", scanner::accept);
+        assertThat(scanner.product()).isEqualTo(5813773056L);
+    }
+
+    /**
+     * Counts the trees met on several slopes in a single pass over the rows. Each row is packed into a bitset, so a
+     * tree lookup is a bit test.
+     */
+    private static class TobogganScanner {
+        private final int[] rights;
+        private final int[] downs;
+        private final int[] positions;
+        private final long[] trees;
+        private long[] row = new long[0];
+        private int width = -1;
+        private long rowIndex;
+
+        public TobogganScanner(int[][] slopes) {
+            rights = new int[slopes.length];
+            downs = new int[slopes.length];
+            positions = new int[slopes.length];
+            trees = new long[slopes.length];
+            for (int s = 0; s < slopes.length; s++) {
+                rights[s] = slopes[s][0];
+                downs[s] = slopes[s][1];
+            }
+        }
+
+        public void accept(CharSequence line) {
+            if (width < 0) {
+                width = line.length();
+                row = new long[(width + 63) >>> 6];
+            } else if (line.length() != width) {
+                throw new IllegalStateException("Row " + rowIndex + " has width " + line.length() + " instead of " + width);
+            }
+
+            Arrays.fill(row, 0);
+            for (int x = 0; x < width; x++) {
+                if (line.charAt(x) == '#') {
+                    row[x >>> 6] |= 1L << x;
+                }
+            }
+
+            for (int s = 0; s < rights.length; s++) {
+                if (rowIndex % downs[s] == 0) {
+                    int position = positions[s];
+                    if ((row[position >>> 6] & (1L << position)) != 0) {
+                        trees[s]++;
+                    }
+                    positions[s] = (int) ((position + (long) rights[s]) % width);
+                }
+            }
+            rowIndex++;
+        }
+
+        public long[] trees() {
+            return trees.clone();
+        }
+
+        public long product() {
+            long product = 1;
+            for (long count : trees) {
+                product *= count;
+            }
+            return product;
+        }
     }
 }
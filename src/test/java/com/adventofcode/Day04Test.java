@@ -4,66 +4,134 @@ import com.adventofcode.utils.FileUtils;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class Day04Test {
-    private static final Set<String> MANDATORY_FIELDS =
-            Set.of("byr", "iyr", "eyr", "hgt", "hcl", "ecl", "pid");
+    private static final int BYR = code('b', 'y', 'r');
+    private static final int IYR = code('i', 'y', 'r');
+    private static final int EYR = code('e', 'y', 'r');
+    private static final int HGT = code('h', 'g', 't');
+    private static final int HCL = code('h', 'c', 'l');
+    private static final int ECL = code('e', 'c', 'l');
+    private static final int PID = code('p', 'i', 'd');
+    private static final int AMB = code('a', 'm', 'b');
+    private static final int BLU = code('b', 'l', 'u');
+    private static final int BRN = code('b', 'r', 'n');
+    private static final int GRY = code('g', 'r', 'y');
+    private static final int GRN = code('g', 'r', 'n');
+    private static final int HZL = code('h', 'z', 'l');
+    private static final int OTH = code('o', 't', 'h');
+    private static final int MANDATORY_FIELDS = 0x7F;
 
-    public static List<List<String>> readBatchFile(List<String> batch) {
-        List<List<String>> passports = new ArrayList<>();
-        List<String> currentPassport = new ArrayList<>();
+    public static long passportProcessing(List<String> batch) {
+        return scanPassports(batch).complete();
+    }
 
+    public static PassportCount scanPassports(List<String> batch) {
+        PassportScanner scanner = new PassportScanner();
         for (String line : batch) {
-            if (line.isEmpty()) {
-                passports.add(currentPassport);
-                currentPassport = new ArrayList<>();
-            } else {
-                String[] split = line.split(" ");
-                currentPassport.addAll(Arrays.asList(split));
+            for (int i = 0; i < line.length(); i++) {
+                scanner.accept(line.charAt(i));
             }
+            scanner.accept('\n');
         }
+        return scanner.finish();
+    }
 
-        passports.add(currentPassport);
-        return passports;
+    public static PassportCount scanPassports(ByteBuffer buffer) {
+        PassportScanner scanner = new PassportScanner();
+        for (int i = buffer.position(), limit = buffer.limit(); i < limit; i++) {
+            scanner.accept((char) (buffer.get(i) & 0xFF));
+        }
+        return scanner.finish();
     }
 
-    public static boolean checkPassportFields(Map<String, String> fields) {
-        for (PassportFields passportFields : PassportFields.values()) {
-            String value = fields.get(passportFields.name());
-            if (value == null && !passportFields.isOptional()) {
-                return false;
+    public static PassportCount scanPassports(Reader reader) throws IOException {
+        PassportScanner scanner = new PassportScanner();
+        char[] chunk = new char[8192];
+        int read;
+        while ((read = reader.read(chunk)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                scanner.accept(chunk[i]);
             }
-            if (!passportFields.validField(value)) {
+        }
+        return scanner.finish();
+    }
+
+    private static boolean validYear(char[] value, int length, int min, int max) {
+        if (length != 4 || !digits(value, 0, 4)) {
+            return false;
+        }
+        int year = number(value, 0, 4);
+        return year >= min && year <= max;
+    }
+
+    private static boolean validHeight(char[] value, int length) {
+        // Valid heights have 2 or 3 digits, longer ones would overflow number()
+        if (length < 3 || length > 5 || !digits(value, 0, length - 2)) {
+            return false;
+        }
+        int height = number(value, 0, length - 2);
+        char u1 = value[length - 2];
+        char u2 = value[length - 1];
+        if (u1 == 'c' && u2 == 'm') {
+            return height >= 150 && height <= 193;
+        } else if (u1 == 'i' && u2 == 'n') {
+            return height >= 59 && height <= 76;
+        }
+        return false;
+    }
+
+    private static boolean validHairColor(char[] value, int length) {
+        if (length != 7 || value[0] != '#') {
+            return false;
+        }
+        for (int i = 1; i < 7; i++) {
+            char c = value[i];
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
                 return false;
             }
         }
         return true;
     }
 
-    public static long passportProcessing(List<String> batch) {
-        List<List<String>> passports = readBatchFile(batch);
-        return passports.stream()
-                .map(Day04Test::readPassport)
-                .filter(Day04Test::checkMandatoryFields)
-                .count();
+    private static boolean validEyeColor(char[] value, int length) {
+        if (length != 3) {
+            return false;
+        }
+        int color = code(value[0], value[1], value[2]);
+        return color == AMB || color == BLU || color == BRN || color == GRY || color == GRN || color == HZL
+                || color == OTH;
     }
 
-    private static Map<String, String> readPassport(List<String> passport) {
-        return passport.stream().map(s -> s.split(":")).collect(Collectors.toMap(s -> s[0], s -> s[1]));
+    private static boolean validPassportId(char[] value, int length) {
+        return length == 9 && digits(value, 0, 9);
     }
 
-    private static boolean checkMandatoryFields(Map<String, String> fields) {
-        return MANDATORY_FIELDS.stream().allMatch(fields::containsKey);
+    private static boolean digits(char[] value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (value[i] < '0' || value[i] > '9') {
+                return false;
+            }
+        }
+        return from < to;
+    }
+
+    private static int number(char[] value, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            n = n * 10 + (value[i] - '0');
+        }
+        return n;
+    }
+
+    private static int code(char c0, char c1, char c2) {
+        return (c0 << 16) | (c1 << 8) | c2;
     }
 
     @Test
@@ -103,10 +171,7 @@ public class Day04Test {
                 "eyr:2038 hcl:74454a iyr:2023",
                 "pid:3556412378 byr:2007");
 
-        assertThat(readBatchFile(batch).stream()
-                .map(Day04Test::readPassport)
-                .noneMatch(p -> checkMandatoryFields(p) && checkPassportFields(p)))
-                .isTrue();
+        assertThat(scanPassports(batch)).isEqualTo(new PassportCount(4, 4, 0));
     }
 
     @Test
@@ -124,10 +189,7 @@ public class Day04Test {
                 "",
                 "iyr:2010 hgt:158cm hcl:#b6652a ecl:blu byr:1944 eyr:2021 pid:093154719");
 
-        assertThat(readBatchFile(batch).stream()
-                .map(Day04Test::readPassport)
-                .allMatch(p -> checkMandatoryFields(p) && checkPassportFields(p)))
-                .isTrue();
+        assertThat(scanPassports(batch)).isEqualTo(new PassportCount(4, 4, 4));
     }
 
     @Test
@@ -139,6 +201,8 @@ public class Day04Test {
         assertThat(PassportFields.hgt.validField("190cm")).isTrue();
         assertThat(PassportFields.hgt.validField("190in")).isFalse();
         assertThat(PassportFields.hgt.validField("190")).isFalse();
+        assertThat(PassportFields.hgt.validField("4294967446cm")).isFalse();
+        assertThat(PassportFields.hgt.validField("1000cm")).isFalse();
 
         assertThat(PassportFields.hcl.validField("#123abc")).isTrue();
         assertThat(PassportFields.hcl.validField("#123abz")).isFalse();
@@ -294,36 +358,166 @@ public class Day04Test {
         assertThat(passportProcessing(batch)).isEqualTo(210);
 
 
-        assertThat(readBatchFile(batch).stream()
-                .map(Day04Test::readPassport)
-                .filter(p -> checkMandatoryFields(p) && checkPassportFields(p))
-                .count())
-                .isEqualTo(131);
+        assertThat(scanPassports(batch).valid()).isEqualTo(131);
+        assertThat(scanPassports(FileUtils.readBytes("/day/4/input"))).isEqualTo(new PassportCount(276, 210, 131));
+        assertThat(scanPassports(new StringReader(String.join("\n", batch)))).isEqualTo(new PassportCount(276, 210, 131));
+    }
+
+    public record PassportCount(long passports, long complete, long valid) {
+    }
+
+    /**
+     * Streaming passport validator fed one character at a time. Field presence and validity are tracked in bitmasks
+     * and values are checked by hand from a small reused buffer, so no per-passport structure is built.
+     */
+    private static class PassportScanner {
+        private final char[] key = new char[3];
+        private final char[] value = new char[16];
+        private int keyLength;
+        private int valueLength;
+        private boolean inValue;
+        private boolean lineEmpty = true;
+
+        private int present;
+        private int valid;
+        private boolean inPassport;
+
+        private long passports;
+        private long complete;
+        private long validPassports;
+
+        public void accept(char c) {
+            switch (c) {
+                case '\r' -> {
+                }
+                case '\n' -> {
+                    endField();
+                    if (lineEmpty) {
+                        endPassport();
+                    }
+                    lineEmpty = true;
+                }
+                case ' ' -> endField();
+                case ':' -> {
+                    if (inValue) {
+                        appendValue(c);
+                    } else {
+                        inValue = true;
+                    }
+                }
+                default -> {
+                    lineEmpty = false;
+                    inPassport = true;
+                    if (inValue) {
+                        appendValue(c);
+                    } else if (keyLength < key.length) {
+                        key[keyLength++] = c;
+                    } else {
+                        keyLength = key.length + 1;
+                    }
+                }
+            }
+        }
+
+        public PassportCount finish() {
+            endField();
+            endPassport();
+            return new PassportCount(passports, complete, validPassports);
+        }
+
+        private void appendValue(char c) {
+            if (valueLength < value.length) {
+                value[valueLength] = c;
+            }
+            valueLength++;
+        }
+
+        private void endField() {
+            if (keyLength == key.length && inValue) {
+                int bit = fieldBit(code(key[0], key[1], key[2]));
+                if (bit != 0) {
+                    present |= bit;
+                    if (validField(bit, valueLength <= value.length ? valueLength : -1)) {
+                        valid |= bit;
+                    }
+                }
+            }
+            keyLength = 0;
+            valueLength = 0;
+            inValue = false;
+        }
+
+        private void endPassport() {
+            if (inPassport) {
+                passports++;
+                if ((present & MANDATORY_FIELDS) == MANDATORY_FIELDS) {
+                    complete++;
+                    if ((valid & MANDATORY_FIELDS) == MANDATORY_FIELDS) {
+                        validPassports++;
+                    }
+                }
+            }
+            present = 0;
+            valid = 0;
+            inPassport = false;
+        }
+
+        private static int fieldBit(int code) {
+            if (code == BYR) {
+                return 1;
+            } else if (code == IYR) {
+                return 1 << 1;
+            } else if (code == EYR) {
+                return 1 << 2;
+            } else if (code == HGT) {
+                return 1 << 3;
+            } else if (code == HCL) {
+                return 1 << 4;
+            } else if (code == ECL) {
+                return 1 << 5;
+            } else if (code == PID) {
+                return 1 << 6;
+            }
+            return 0;
+        }
+
+        private boolean validField(int bit, int length) {
+            if (length < 0) {
+                return false;
+            }
+            return switch (bit) {
+                case 1 -> validYear(value, length, 1920, 2002);
+                case 1 << 1 -> validYear(value, length, 2010, 2020);
+                case 1 << 2 -> validYear(value, length, 2020, 2030);
+                case 1 << 3 -> validHeight(value, length);
+                case 1 << 4 -> validHairColor(value, length);
+                case 1 << 5 -> validEyeColor(value, length);
+                case 1 << 6 -> validPassportId(value, length);
+                default -> false;
+            };
+        }
     }
 
     enum PassportFields {
         byr(false) {
             // (Birth Year) - four digits; at least 1920 and at most 2002.
             @Override
-            boolean validField(String value) {
-                int year = Integer.parseInt(value);
-                return value.length() == 4 && year >= 1920 && year <= 2002;
+            boolean validField(char[] value) {
+                return validYear(value, value.length, 1920, 2002);
             }
         },
         iyr(false) {
             // (Issue Year) - four digits; at least 2010 and at most 2020.
             @Override
-            boolean validField(String value) {
-                int year = Integer.parseInt(value);
-                return value.length() == 4 && year >= 2010 && year <= 2020;
+            boolean validField(char[] value) {
+                return validYear(value, value.length, 2010, 2020);
             }
         },
         eyr(false) {
             // (Expiration Year) - four digits; at least 2020 and at most 2030.
             @Override
-            boolean validField(String value) {
-                int year = Integer.parseInt(value);
-                return value.length() == 4 && year >= 2020 && year <= 2030;
+            boolean validField(char[] value) {
+                return validYear(value, value.length, 2020, 2030);
             }
         },
         hgt(false) {
@@ -331,56 +525,35 @@ public class Day04Test {
             // If cm, the number must be at least 150 and at most 193.
             // If in, the number must be at least 59 and at most 76.
             @Override
-            boolean validField(String value) {
-                Pattern compile = Pattern.compile("(\\d+)(in|cm)");
-                Matcher matcher = compile.matcher(value);
-                if (matcher.find()) {
-                    int height = Integer.parseInt(matcher.group(1));
-
-                    switch (matcher.group(2)) {
-                        case "in":
-                            return height >= 59 && height <= 76;
-                        case "cm":
-                            return height >= 150 && height <= 193;
-                        default:
-                            return false;
-                    }
-                }
-
-                return false;
+            boolean validField(char[] value) {
+                return validHeight(value, value.length);
             }
         },
         hcl(false) {
-            public final Pattern PATTERN = Pattern.compile("#[0-9a-f]{6}");
-
             // (Hair Color) - a # followed by exactly six characters 0-9 or a-f.
             @Override
-            boolean validField(String value) {
-                return PATTERN.matcher(value).find();
+            boolean validField(char[] value) {
+                return validHairColor(value, value.length);
             }
         },
         ecl(false) {
-            private final Set<String> EYE_COLORS = Set.of("amb", "blu", "brn", "gry", "grn", "hzl", "oth");
-
             // (Eye Color) - exactly one of: amb blu brn gry grn hzl oth.
             @Override
-            boolean validField(String value) {
-                return EYE_COLORS.contains(value);
+            boolean validField(char[] value) {
+                return validEyeColor(value, value.length);
             }
         },
         pid(false) {
-            public final Pattern PATTERN = Pattern.compile("[0-9]{9}");
-
             // (Passport ID) - a nine-digit number, including leading zeroes.
             @Override
-            boolean validField(String value) {
-                return value.length() == 9 && PATTERN.matcher(value).find();
+            boolean validField(char[] value) {
+                return validPassportId(value, value.length);
             }
         },
         cid(true) {
             // (Country ID) - ignored, missing or not.
             @Override
-            boolean validField(String value) {
+            boolean validField(char[] value) {
                 return true;
             }
         };
@@ -392,7 +565,11 @@ public class Day04Test {
             this.optional = optional;
         }
 
-        abstract boolean validField(String value);
+        abstract boolean validField(char[] value);
+
+        boolean validField(String value) {
+            return validField(value.toCharArray());
+        }
 
         public boolean isOptional() {
             return optional;
@@ -4,39 +4,63 @@ import com.adventofcode.utils.FileUtils;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.OptionalLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class Day05Test {
-    public static long binaryBoarding(String boardingPasses) {
-        long row = 0;
-        long column = 0;
+    private static final long BOARDING_BITS = 0x0101010101010101L;
+    private static final long GATHER_BITS = 0x0102040810204080L;
 
+    public static long binaryBoarding(String boardingPasses) {
+        long seatId = 0;
         for (int i = 0; i < boardingPasses.length(); ++i) {
-            switch (boardingPasses.charAt(i)) {
-                case 'F':
-                    row <<= 1;
-                    break;
-                case 'B':
-                    row++;
-                    row <<= 1;
-                    break;
-                case 'L':
-                    column <<= 1;
-                    break;
-                case 'R':
-                    column += 1;
-                    column <<= 1;
-                    break;
-            }
+            seatId = (seatId << 1) | boardingBit(boardingPasses.charAt(i));
         }
+        return seatId;
+    }
+
+    /**
+     * B and R are 1 bits, F and L are 0 bits: among these letters only F and L have bit 2 set.
+     */
+    private static int boardingBit(int c) {
+        return ((c >>> 2) & 1) ^ 1;
+    }
 
-        row >>= 1;
-        column >>= 1;
+    /**
+     * Decodes the first 8 letters of a boarding pass at once: one bit is extracted per byte, then the 8 bits are
+     * gathered in the top byte by a multiplication.
+     */
+    private static int boardingByte(long word) {
+        long bits = (~word >>> 2) & BOARDING_BITS;
+        return (int) ((bits * GATHER_BITS) >>> 56);
+    }
 
-        return row * 8 + column;
+    /**
+     * Decodes every 10-letter boarding pass of the buffer into an occupancy bitmap of the 1024 seats.
+     */
+    public static SeatMap decodeBoardingPasses(ByteBuffer buffer) {
+        ByteBuffer bigEndian = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        SeatMap seats = new SeatMap();
+        int i = buffer.position();
+        int limit = buffer.limit();
+        while (i + 10 <= limit) {
+            byte c = bigEndian.get(i);
+            if (c == '\n' || c == '\r') {
+                i++;
+                continue;
+            }
+            int seatId = (boardingByte(bigEndian.getLong(i)) << 2)
+                    | (boardingBit(bigEndian.get(i + 8)) << 1)
+                    | boardingBit(bigEndian.get(i + 9));
+            seats.occupy(seatId);
+            i += 10;
+        }
+        return seats;
     }
 
     private static OptionalLong findEmptySeat(long[] seatIds) {
@@ -55,6 +79,12 @@ public class Day05Test {
         assertThat(binaryBoarding("BFFFBBFRRR")).isEqualTo(567);
         assertThat(binaryBoarding("FFFBBBFRRR")).isEqualTo(119);
         assertThat(binaryBoarding("BBFFBBFRLL")).isEqualTo(820);
+
+        SeatMap seats = decodeBoardingPasses(ByteBuffer.wrap(
+                "FBFBBFFRLR\nBFFFBBFRRR\r\nFFFBBBFRRR\nBBFFBBFRLL\nBBFFBBFRRL\n".getBytes(StandardCharsets.US_ASCII)));
+        assertThat(seats.count()).isEqualTo(5);
+        assertThat(seats.max()).isEqualTo(822);
+        assertThat(seats.emptySeat()).hasValue(821);
     }
 
     /**
@@ -143,5 +173,53 @@ public class Day05Test {
 
         long emptySeat = findEmptySeat(seatIds).orElseThrow();
         assertThat(emptySeat).isEqualTo(711);
+
+        SeatMap seats = decodeBoardingPasses(FileUtils.readBytes("/day/5/input"));
+        assertThat(seats.max()).isEqualTo(933);
+        assertThat(seats.emptySeat()).hasValue(711);
+    }
+
+    /**
+     * Occupancy bitmap of the 128 * 8 seats.
+     */
+    private static class SeatMap {
+        private final long[] occupied = new long[1024 / 64];
+
+        public void occupy(int seatId) {
+            occupied[seatId >>> 6] |= 1L << seatId;
+        }
+
+        public int count() {
+            int count = 0;
+            for (long word : occupied) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+
+        public long max() {
+            for (int w = occupied.length - 1; w >= 0; w--) {
+                if (occupied[w] != 0) {
+                    return (w << 6) + 63 - Long.numberOfLeadingZeros(occupied[w]);
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Finds a free seat whose two neighbors are occupied.
+         */
+        public OptionalLong emptySeat() {
+            for (int w = 0; w < occupied.length; w++) {
+                long word = occupied[w];
+                long previous = w > 0 ? occupied[w - 1] >>> 63 : 0;
+                long next = w + 1 < occupied.length ? occupied[w + 1] << 63 : 0;
+                long free = ~word & ((word << 1) | previous) & ((word >>> 1) | next);
+                if (free != 0) {
+                    return OptionalLong.of((w << 6) + Long.numberOfTrailingZeros(free));
+                }
+            }
+            return OptionalLong.empty();
+        }
     }
 }
@@ -1,28 +1,109 @@
 package com.adventofcode;
 
+import com.adventofcode.utils.ByteBufferFixtures;
+import com.adventofcode.utils.ByteBufferUtils;
 import com.adventofcode.utils.FileUtils;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class Day06Test {
+    private static final int ALL_QUESTIONS = (1 << 26) - 1;
+
+    private static int answerMask(CharSequence answers) {
+        int mask = 0;
+        for (int i = 0; i < answers.length(); i++) {
+            mask |= 1 << (answers.charAt(i) - 'a');
+        }
+        return mask;
+    }
+
     private static long countUniqueQuestions(List<String> group) {
-        return group.stream().flatMapToInt(String::chars).distinct().count();
+        int anyone = 0;
+        for (String answers : group) {
+            anyone |= answerMask(answers);
+        }
+        return Integer.bitCount(anyone);
     }
 
     private static long countAllResponded(List<String> group) {
-        int size = group.size();
-        long[] questions = new long[255];
-        group.stream()
-                .flatMapToInt(s -> s.chars().distinct())
-                .forEach(i -> questions[i]++);
+        int everyone = ALL_QUESTIONS;
+        for (String answers : group) {
+            everyone &= answerMask(answers);
+        }
+        return Integer.bitCount(everyone);
+    }
 
-        return Arrays.stream(questions).filter(q -> q == size).count();
+    /**
+     * Sums, over the blank-line separated groups of the buffer, the questions answered by anyone and by everyone.
+     * Large buffers are split on group boundaries and reduced in parallel.
+     */
+    private static CustomsCount countCustoms(ByteBuffer buffer) {
+        return ByteBufferUtils.reduceChunks(buffer, Day06Test::nextGroup, Day06Test::countCustoms,
+                new CustomsCount(0, 0), CustomsCount::add);
+    }
+
+    private static int nextGroup(ByteBuffer buffer, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                int next = i + 1;
+                while (next < end && buffer.get(next) == '\r') {
+                    next++;
+                }
+                if (next < end && buffer.get(next) == '\n') {
+                    return next + 1;
+                }
+            }
+        }
+        return end;
+    }
+
+    private static CustomsCount countCustoms(ByteBuffer buffer, int start, int end) {
+        long anyoneCount = 0;
+        long everyoneCount = 0;
+        int anyone = 0;
+        int everyone = ALL_QUESTIONS;
+        boolean inGroup = false;
+        int line = 0;
+        boolean lineEmpty = true;
+
+        for (int i = start; i <= end; i++) {
+            byte c = i < end ? buffer.get(i) : (byte) '\n';
+            if (c >= 'a' && c <= 'z') {
+                line |= 1 << (c - 'a');
+                lineEmpty = false;
+            } else if (c == '\n') {
+                if (!lineEmpty) {
+                    anyone |= line;
+                    everyone &= line;
+                    inGroup = true;
+                }
+                if (lineEmpty || i == end) {
+                    if (inGroup) {
+                        anyoneCount += Integer.bitCount(anyone);
+                        everyoneCount += Integer.bitCount(everyone);
+                    }
+                    anyone = 0;
+                    everyone = ALL_QUESTIONS;
+                    inGroup = false;
+                }
+                line = 0;
+                lineEmpty = true;
+            }
+        }
+        return new CustomsCount(anyoneCount, everyoneCount);
+    }
+
+    private record CustomsCount(long anyone, long everyone) {
+        CustomsCount add(CustomsCount other) {
+            return new CustomsCount(anyone + other.anyone, everyone + other.everyone);
+        }
     }
 
     private static List<List<String>> readGroups(List<String> batch) {
@@ -89,6 +170,18 @@ public class Day06Test {
 
         long sum = readGroups(batch).stream().map(Day06Test::countAllResponded).mapToLong(t -> t).sum();
         assertThat(sum).isEqualTo(6);
+
+        ByteBuffer buffer = ByteBuffer.wrap(String.join("\n", batch).getBytes(StandardCharsets.US_ASCII));
+        assertThat(countCustoms(buffer)).isEqualTo(new CustomsCount(11, 6));
+    }
+
+    @Test
+    void testLargeCustoms() {
+        byte[] group = "abc\r\n\r\na\nb\nc\n\nab\nac\n\na\na\na\na\n\nb\n\n".getBytes(StandardCharsets.US_ASCII);
+        int repeat = 200_000;
+        ByteBuffer buffer = ByteBufferFixtures.repeat(group, repeat);
+
+        assertThat(countCustoms(buffer)).isEqualTo(new CustomsCount(11L * repeat, 6L * repeat));
     }
 
     /**
@@ -204,5 +297,7 @@ public class Day06Test {
 
         long countAllResponded = groups.stream().map(Day06Test::countAllResponded).mapToLong(t -> t).sum();
         assertThat(countAllResponded).isEqualTo(3354);
+
+        assertThat(countCustoms(FileUtils.readBytes("/day/6/input"))).isEqualTo(new CustomsCount(6799, 3354));
     }
 }
@@ -1,103 +1,28 @@
 package com.adventofcode;
 
 import com.adventofcode.utils.FileUtils;
-import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.Test;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class Day07Test {
-    private static final Logger LOGGER = LoggerFactory.getLogger(Day07Test.class);
-    private static final Pattern PATTERN = Pattern.compile("(\\d+) (.*) bag");
-
-    private static Pair<String, List<Pair<String, Integer>>> readRule(String rule) {
-        String[] splitContain = rule.replace(".", "").split(" contain ");
-        String leftRule = splitContain[0];
-        String rightRule = splitContain[1];
-
-        String color = leftRule.replace(" bags", "");
-        String[] splitComma = rightRule.split(", ");
-
-        List<Pair<String, Integer>> contain = new ArrayList<>();
-        for (String s : splitComma) {
-            Matcher matcher = PATTERN.matcher(s);
-            if (matcher.find()) {
-                contain.add(Pair.of(matcher.group(2), Integer.valueOf(matcher.group(1))));
-            }
-        }
-
-        return Pair.of(color, contain);
-    }
+    private static final String SHINY_GOLD = "shiny gold";
 
     private static long countShinyGold(List<String> rules) {
-        Map<String, List<String>> bags = new HashMap<>();
-        rules.stream()
-                .map(Day07Test::readRule)
-                .forEach(r -> {
-                    String color = r.getLeft();
-                    r.getRight().stream().map(Pair::getLeft).forEach(c -> bags.computeIfAbsent(c, ignore -> new ArrayList<>()).add(color));
-                });
-
-        LOGGER.info("Bags {}", bags);
-        Queue<String> queue = new ArrayDeque<>();
-        queue.add("shiny gold");
-
-        Set<String> set = new HashSet<>();
-
-        while (!queue.isEmpty()) {
-            String color = queue.remove();
-
-            List<String> colors = bags.get(color);
-            if (CollectionUtils.isNotEmpty(colors)) {
-                for (String c : colors) {
-                    if (set.add(c)) {
-                        queue.add(c);
-                    }
-                }
-            }
-
-        }
-        return set.size();
-    }
-
-    private static long handyHaversacks(Map<String, List<Pair<String, Integer>>> bags, String color, Map<String, Long> cache) {
-        Long value = cache.get(color);
-        if (value != null) {
-            return value;
-        }
-
-        long count = 1;
-        List<Pair<String, Integer>> colors = bags.get(color);
-        if (CollectionUtils.isNotEmpty(colors)) {
-            for (Pair<String, Integer> pair : colors) {
-                count += pair.getRight() * handyHaversacks(bags, pair.getLeft(), cache);
-            }
-        }
-
-        cache.put(color, count);
-        return count;
+        return BagGraph.parse(rules).countContainers(SHINY_GOLD);
     }
 
     private static long countHandyHaversacks(List<String> rules) {
-        Map<String, List<Pair<String, Integer>>> bags = rules.stream().map(Day07Test::readRule).collect(Collectors.toMap(Pair::getLeft, Pair::getRight));
-
-        return handyHaversacks(bags, "shiny gold", new HashMap<>()) - 1;
+        return BagGraph.parse(rules).countInside(SHINY_GOLD);
     }
 
     @Test
@@ -112,8 +37,6 @@ public class Day07Test {
                 "faded blue bags contain no other bags.",
                 "dotted black bags contain no other bags.");
 
-        rules.forEach(s -> LOGGER.info("rule: {}", readRule(s)));
-
         assertThat(countShinyGold(rules)).isEqualTo(4);
 
         assertThat(countHandyHaversacks(rules)).isEqualTo(32);
@@ -132,6 +55,24 @@ public class Day07Test {
         assertThat(countHandyHaversacks(rules)).isEqualTo(126);
     }
 
+    @Test
+    void testDeepBagGraph() {
+        int depth = 1_000_000;
+        List<String> rules = new ArrayList<>(depth + 1);
+        rules.add("shiny gold bags contain 1 color 0 bag.");
+        for (int i = 0; i < depth - 1; i++) {
+            rules.add("color " + i + " bags contain 1 color " + (i + 1) + " bag.");
+        }
+        rules.add("color " + (depth - 1) + " bags contain no other bags.");
+        rules.add("top bags contain 3 shiny gold bags.");
+
+        BagGraph graph = BagGraph.parse(rules);
+        assertThat(graph.size()).isEqualTo(depth + 2);
+        assertThat(graph.countInside(SHINY_GOLD)).isEqualTo(depth);
+        assertThat(graph.countContainers(SHINY_GOLD)).isEqualTo(1);
+        assertThat(graph.countContainers("color " + (depth - 1))).isEqualTo(depth + 1);
+    }
+
     /**
      * --- Day 7: Handy Haversacks ---
      * You land at the regional airport in time for your next flight. In fact, it
@@ -219,4 +160,331 @@ public class Day07Test {
 
         assertThat(countHandyHaversacks(rules)).isEqualTo(1488);
     }
+
+    @Test
+    void inputBagCatalog() throws IOException {
+        BagGraph graph = BagGraph.parse(FileUtils.readLines("/day/7/input"));
+        BagCatalog catalog = graph.catalog();
+
+        assertThat(catalog.containers(SHINY_GOLD)).isEqualTo(224);
+        assertThat(catalog.inside(SHINY_GOLD)).isEqualTo(1488);
+        for (String color : graph.colors()) {
+            assertThat(catalog.containers(color)).as(color).isEqualTo(graph.countContainers(color));
+            assertThat(catalog.inside(color)).as(color).isEqualTo(graph.countInside(color));
+        }
+    }
+
+    @Test
+    void testBagCatalogComponents() {
+        List<String> rules = new ArrayList<>();
+        for (int c = 0; c < 100; c++) {
+            rules.add("root " + c + " bags contain 2 middle " + c + " bags, 1 leaf " + c + " bag.");
+            rules.add("middle " + c + " bags contain 3 leaf " + c + " bags.");
+            rules.add("leaf " + c + " bags contain no other bags.");
+        }
+
+        BagCatalog catalog = BagGraph.parse(rules).catalog();
+        for (int c = 0; c < 100; c++) {
+            assertThat(catalog.inside("root " + c)).isEqualTo(2 * 4 + 1);
+            assertThat(catalog.containers("leaf " + c)).isEqualTo(2);
+            assertThat(catalog.containers("root " + c)).isZero();
+        }
+    }
+
+    /**
+     * Bag rules with colors interned to dense ids and edges stored in CSR arrays, in both directions. Queries are
+     * dynamic programs over a topological order, so no recursion is involved.
+     */
+    private static class BagGraph {
+        private final Map<String, Integer> ids;
+        private final int[] offsets;
+        private final int[] children;
+        private final long[] counts;
+        private final int[] reverseOffsets;
+        private final int[] parents;
+        private final int[] order;
+
+        private BagGraph(Map<String, Integer> ids, int[] edgeParents, int[] edgeChildren, long[] edgeCounts, int edgeCount) {
+            this.ids = ids;
+            int size = ids.size();
+
+            offsets = new int[size + 1];
+            reverseOffsets = new int[size + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                offsets[edgeParents[e] + 1]++;
+                reverseOffsets[edgeChildren[e] + 1]++;
+            }
+            for (int i = 0; i < size; i++) {
+                offsets[i + 1] += offsets[i];
+                reverseOffsets[i + 1] += reverseOffsets[i];
+            }
+
+            children = new int[edgeCount];
+            counts = new long[edgeCount];
+            parents = new int[edgeCount];
+            int[] fill = new int[size];
+            int[] reverseFill = new int[size];
+            for (int e = 0; e < edgeCount; e++) {
+                int parent = edgeParents[e];
+                int child = edgeChildren[e];
+                int index = offsets[parent] + fill[parent]++;
+                children[index] = child;
+                counts[index] = edgeCounts[e];
+                parents[reverseOffsets[child] + reverseFill[child]++] = parent;
+            }
+
+            order = topologicalOrder();
+        }
+
+        public static BagGraph parse(List<String> rules) {
+            Map<String, Integer> ids = new HashMap<>();
+            int[] edgeParents = new int[16];
+            int[] edgeChildren = new int[16];
+            long[] edgeCounts = new long[16];
+            int edgeCount = 0;
+
+            for (String rule : rules) {
+                int split = rule.indexOf(" bags contain ");
+                int parent = intern(ids, rule.substring(0, split));
+
+                int i = split + " bags contain ".length();
+                if (rule.startsWith("no other", i)) {
+                    continue;
+                }
+                while (i < rule.length()) {
+                    int space = rule.indexOf(' ', i);
+                    long count = Long.parseLong(rule, i, space, 10);
+                    int bag = rule.indexOf(" bag", space);
+                    int child = intern(ids, rule.substring(space + 1, bag));
+
+                    if (edgeCount == edgeParents.length) {
+                        edgeParents = Arrays.copyOf(edgeParents, edgeCount * 2);
+                        edgeChildren = Arrays.copyOf(edgeChildren, edgeCount * 2);
+                        edgeCounts = Arrays.copyOf(edgeCounts, edgeCount * 2);
+                    }
+                    edgeParents[edgeCount] = parent;
+                    edgeChildren[edgeCount] = child;
+                    edgeCounts[edgeCount] = count;
+                    edgeCount++;
+
+                    int next = rule.indexOf(", ", bag);
+                    i = next < 0 ? rule.length() : next + 2;
+                }
+            }
+
+            return new BagGraph(ids, edgeParents, edgeChildren, edgeCounts, edgeCount);
+        }
+
+        private static int intern(Map<String, Integer> ids, String color) {
+            Integer id = ids.putIfAbsent(color, ids.size());
+            return id != null ? id : ids.size() - 1;
+        }
+
+        public int size() {
+            return ids.size();
+        }
+
+        public int id(String color) {
+            Integer id = ids.get(color);
+            if (id == null) {
+                throw new IllegalStateException("Unknown color: " + color);
+            }
+            return id;
+        }
+
+        /**
+         * Number of colors that can eventually contain the given color.
+         */
+        public long countContainers(String color) {
+            int target = id(color);
+            boolean[] reaches = new boolean[size()];
+            reaches[target] = true;
+            long result = 0;
+            // Children come after their parents in the order, so walk it backwards
+            for (int o = order.length - 1; o >= 0; o--) {
+                int bag = order[o];
+                if (bag == target) {
+                    continue;
+                }
+                for (int e = offsets[bag]; e < offsets[bag + 1]; e++) {
+                    if (reaches[children[e]]) {
+                        reaches[bag] = true;
+                        result++;
+                        break;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Number of bags inside one bag of the given color.
+         */
+        public long countInside(String color) {
+            int target = id(color);
+            long[] inside = new long[size()];
+            for (int o = order.length - 1; o >= 0; o--) {
+                int bag = order[o];
+                long total = 0;
+                for (int e = offsets[bag]; e < offsets[bag + 1]; e++) {
+                    total += counts[e] * (1 + inside[children[e]]);
+                }
+                inside[bag] = total;
+                if (bag == target) {
+                    break;
+                }
+            }
+            return inside[target];
+        }
+
+        public Set<String> colors() {
+            return ids.keySet();
+        }
+
+        /**
+         * Inside counts and container counts for every color at once. Ancestor sets are bitsets built in topological
+         * order, each one the union of its parents' sets. Weakly connected components share no edge, so they are
+         * processed in parallel and their bitsets only span the component.
+         */
+        public BagCatalog catalog() {
+            int size = size();
+            int[] component = components();
+
+            // Group bags by component, keeping the topological order inside each group
+            int componentCount = 0;
+            for (int bag = 0; bag < size; bag++) {
+                componentCount = Math.max(componentCount, component[bag] + 1);
+            }
+            int[] componentOffsets = new int[componentCount + 1];
+            for (int bag = 0; bag < size; bag++) {
+                componentOffsets[component[bag] + 1]++;
+            }
+            for (int c = 0; c < componentCount; c++) {
+                componentOffsets[c + 1] += componentOffsets[c];
+            }
+            int[] fill = Arrays.copyOf(componentOffsets, componentCount);
+            int[] grouped = new int[size];
+            int[] local = new int[size];
+            for (int bag : order) {
+                int index = fill[component[bag]]++;
+                grouped[index] = bag;
+                local[bag] = index - componentOffsets[component[bag]];
+            }
+
+            long[] inside = new long[size];
+            int[] containers = new int[size];
+            IntStream.range(0, componentCount)
+                    .parallel()
+                    .forEach(c -> {
+                        int from = componentOffsets[c];
+                        int to = componentOffsets[c + 1];
+                        int words = (to - from + 63) >>> 6;
+                        long[][] ancestors = new long[to - from][];
+                        for (int i = from; i < to; i++) {
+                            int bag = grouped[i];
+                            long[] bits = new long[words];
+                            for (int e = reverseOffsets[bag]; e < reverseOffsets[bag + 1]; e++) {
+                                int parent = local[parents[e]];
+                                long[] parentBits = ancestors[parent];
+                                for (int w = 0; w < words; w++) {
+                                    bits[w] |= parentBits[w];
+                                }
+                                bits[parent >>> 6] |= 1L << parent;
+                            }
+                            int cardinality = 0;
+                            for (long word : bits) {
+                                cardinality += Long.bitCount(word);
+                            }
+                            ancestors[i - from] = bits;
+                            containers[bag] = cardinality;
+                        }
+                        for (int i = to - 1; i >= from; i--) {
+                            int bag = grouped[i];
+                            long total = 0;
+                            for (int e = offsets[bag]; e < offsets[bag + 1]; e++) {
+                                total += counts[e] * (1 + inside[children[e]]);
+                            }
+                            inside[bag] = total;
+                        }
+                    });
+
+            return new BagCatalog(this, inside, containers);
+        }
+
+        private int[] components() {
+            int size = size();
+            int[] root = new int[size];
+            for (int bag = 0; bag < size; bag++) {
+                root[bag] = bag;
+            }
+            for (int bag = 0; bag < size; bag++) {
+                for (int e = offsets[bag]; e < offsets[bag + 1]; e++) {
+                    int a = find(root, bag);
+                    int b = find(root, children[e]);
+                    if (a != b) {
+                        root[Math.max(a, b)] = Math.min(a, b);
+                    }
+                }
+            }
+
+            // Relabel roots to dense component ids
+            int[] component = new int[size];
+            int count = 0;
+            for (int bag = 0; bag < size; bag++) {
+                int r = find(root, bag);
+                component[bag] = r == bag ? count++ : component[r];
+            }
+            return component;
+        }
+
+        private static int find(int[] root, int bag) {
+            while (root[bag] != bag) {
+                root[bag] = root[root[bag]];
+                bag = root[bag];
+            }
+            return bag;
+        }
+
+        private int[] topologicalOrder() {
+            int size = size();
+            int[] remaining = new int[size];
+            for (int bag = 0; bag < size; bag++) {
+                remaining[bag] = reverseOffsets[bag + 1] - reverseOffsets[bag];
+            }
+
+            int[] result = new int[size];
+            int head = 0;
+            int tail = 0;
+            for (int bag = 0; bag < size; bag++) {
+                if (remaining[bag] == 0) {
+                    result[tail++] = bag;
+                }
+            }
+            while (head < tail) {
+                int bag = result[head++];
+                for (int e = offsets[bag]; e < offsets[bag + 1]; e++) {
+                    if (--remaining[children[e]] == 0) {
+                        result[tail++] = children[e];
+                    }
+                }
+            }
+            if (tail != size) {
+                throw new IllegalStateException("Bag rules contain a cycle");
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Precomputed answers for every color of a {@link BagGraph}.
+     */
+    private record BagCatalog(BagGraph graph, long[] inside, int[] containers) {
+        public long inside(String color) {
+            return inside[graph.id(color)];
+        }
+
+        public long containers(String color) {
+            return containers[graph.id(color)];
+        }
+    }
 }
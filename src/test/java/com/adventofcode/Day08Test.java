@@ -1,80 +1,33 @@
 package com.adventofcode;
 
+import com.adventofcode.handheld.HandheldRepair;
+import com.adventofcode.handheld.HandheldVm;
 import com.adventofcode.utils.FileUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.Test;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class Day08Test {
-    private static final Logger LOGGER = LoggerFactory.getLogger(Day08Test.class);
-
-    List<Pair<String, Long>> parseCommands(List<String> program) {
-        return program.stream()
-                .map(s -> s.split(" "))
-                .map(s -> Pair.of(s[0], Long.parseLong(s[1])))
-                .collect(Collectors.toList());
-    }
-
     Pair<Long, Boolean> runHandheldGameConsole(List<String> program) {
-        List<Pair<String, Long>> commands = parseCommands(program);
-        LOGGER.debug("Commands = {}", commands);
-        int position = 0;
-        long accumulator = 0;
-        Set<Integer> runCommands = new HashSet<>();
-        while (position < commands.size()) {
-            Pair<String, Long> command = commands.get(position);
-            LOGGER.trace("Running command {}", command);
-            if (runCommands.add(position)) {
-                switch (command.getLeft()) {
-                    case "acc" -> {
-                        accumulator += command.getValue();
-                        position++;
-                    }
-                    case "jmp" -> position += command.getValue();
-                    case "nop" -> position++;
-                }
-            } else {
-                return Pair.of(accumulator, false);
-            }
-        }
-
-        return Pair.of(accumulator, true);
+        HandheldVm vm = HandheldVm.compile(program);
+        boolean terminated = vm.runUntilLoop();
+        return Pair.of(vm.accumulator(), terminated);
     }
 
     long fixHandheldGameConsole(List<String> program) {
-        for (int i = 0; i < program.size(); i++) {
-            String s = program.get(i);
-            if (s.startsWith("nop")) {
-                s = s.replace("nop", "jmp");
-                List<String> newProgram = new ArrayList<>(program);
-                newProgram.set(i, s);
-                Pair<Long, Boolean> result = runHandheldGameConsole(newProgram);
-                if (result.getRight()) {
-                    return result.getLeft();
-                }
-            } else if (s.startsWith("jmp")) {
-                s = s.replace("jmp", "nop");
-                List<String> newProgram = new ArrayList<>(program);
-                newProgram.set(i, s);
-                Pair<Long, Boolean> result = runHandheldGameConsole(newProgram);
-                if (result.getRight()) {
-                    return result.getLeft();
-                }
-            }
-
+        HandheldVm vm = HandheldVm.compile(program);
+        int flip = HandheldRepair.findFlip(vm);
+        if (flip < 0) {
+            return 0;
         }
 
-        return 0;
+        vm.flip(flip);
+        vm.runUntilLoop();
+        return vm.accumulator();
     }
 
     @Test
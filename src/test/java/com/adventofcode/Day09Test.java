@@ -1,58 +1,110 @@
 package com.adventofcode;
 
+import com.adventofcode.memory.LongMemory;
 import com.adventofcode.utils.FileUtils;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class Day09Test {
-    boolean isValid(List<Long> codes, int start, int end, long value) {
-        for (int n = start; n < end; ++n) {
-            for (int m = n + 1; m < end; ++m) {
-                if (codes.get(m) + codes.get(n) == value) {
-                    return true;
-                }
+    List<Long> findContiguousSet(List<Long> codes, long value) {
+        return findContiguousRange(codes.stream().mapToLong(Long::longValue), value)
+                .map(range -> codes.subList((int) range.start(), (int) range.end()))
+                .orElse(Collections.emptyList());
+    }
+
+    /**
+     * Finds the first range of at least two contiguous codes summing to value, in a single pass over non-negative
+     * codes; only the current window is kept in memory.
+     */
+    Optional<ContiguousRange> findContiguousRange(LongStream codes, long value) {
+        long[] window = new long[16];
+        int head = 0;
+        int length = 0;
+        long start = 0;
+        long sum = 0;
+
+        PrimitiveIterator.OfLong iterator = codes.iterator();
+        while (iterator.hasNext()) {
+            long code = iterator.nextLong();
+            if (code < 0) {
+                throw new IllegalStateException("Negative code are not allowed: " + code);
             }
-        }
 
-        return false;
-    }
+            if (length == window.length) {
+                long[] grown = new long[length * 2];
+                for (int i = 0; i < length; i++) {
+                    grown[i] = window[(head + i) & (length - 1)];
+                }
+                window = grown;
+                head = 0;
+            }
+            window[(head + length++) & (window.length - 1)] = code;
+            sum += code;
 
-    List<Long> findContiguousSet(List<Long> codes, long value) {
-        long[] sum = new long[codes.size() + 1];
-        sum[0] = 0;
-        for (int i = 0; i < codes.size(); i++) {
-            sum[i + 1] = sum[i] + codes.get(i);
-        }
+            while (sum > value && length > 0) {
+                sum -= window[head];
+                head = (head + 1) & (window.length - 1);
+                length--;
+                start++;
+            }
 
-        for (int n = 0; n < sum.length; ++n) {
-            for (int m = n + 1; m < sum.length; ++m) {
-                long s = sum[m] - sum[n];
-                if (s == value) {
-                    return codes.subList(n, m);
+            if (sum == value && length >= 2) {
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (int i = 0; i < length; i++) {
+                    long c = window[(head + i) & (window.length - 1)];
+                    min = Math.min(min, c);
+                    max = Math.max(max, c);
                 }
+                return Optional.of(new ContiguousRange(start, start + length, min, max));
             }
         }
 
-        return Collections.emptyList();
+        return Optional.empty();
     }
 
     OptionalLong findEncodingError(List<Long> codes, int preamble) {
-        for (int n = preamble; n < codes.size(); ++n) {
-            if (!isValid(codes, n - preamble, n, codes.get(n))) {
-                return OptionalLong.of(codes.get(n));
+        return findEncodingError(codes.stream().mapToLong(Long::longValue), preamble);
+    }
+
+    OptionalLong findEncodingError(LongStream codes, int preamble) {
+        XmasValidator validator = new XmasValidator(preamble);
+        PrimitiveIterator.OfLong iterator = codes.iterator();
+        while (iterator.hasNext()) {
+            long code = iterator.nextLong();
+            if (!validator.accept(code)) {
+                return OptionalLong.of(code);
             }
         }
 
         return OptionalLong.empty();
     }
 
+    @Test
+    void testLargeEncodingError() {
+        int preamble = 1000;
+        LongStream codes = LongStream.concat(LongStream.range(0, 1_000_000).map(n -> n % 3), LongStream.of(5));
+
+        assertThat(findEncodingError(codes, preamble)).hasValue(5);
+    }
+
+    @Test
+    void testInvalidPreamble() {
+        assertThatThrownBy(() -> findEncodingError(List.of(1L, 2L, 3L), 0)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> findEncodingError(List.of(1L, 2L, 3L), -1)).isInstanceOf(IllegalStateException.class);
+    }
+
     @Test
     void testEncodingError() {
         List<Long> codes = List.of(
@@ -82,11 +134,19 @@ public class Day09Test {
         assertThat(encodingError)
                 .isPresent()
                 .hasValue(127);
+        assertThat(findEncodingError(LongStream.of(1, 1, 2, 3, 5, 8), 2)).isEmpty();
+        assertThat(findEncodingError(LongStream.of(1, 2, 2), 2)).hasValue(2);
 
         List<Long> contiguousSet = findContiguousSet(codes, 127);
         assertThat(contiguousSet).containsExactly(15L, 25L, 47L, 40L);
         long weakness = Collections.max(contiguousSet) + Collections.min(contiguousSet);
         assertThat(weakness).isEqualTo(62);
+
+        assertThat(findContiguousRange(codes.stream().mapToLong(Long::longValue), 127))
+                .contains(new ContiguousRange(2, 6, 15, 47));
+        assertThat(findContiguousRange(LongStream.of(3, 0, 0, 5, 4), 3))
+                .contains(new ContiguousRange(0, 2, 0, 3));
+        assertThat(findContiguousRange(LongStream.of(1, 2, 4, 8), 5)).isEmpty();
     }
 
     /**
@@ -234,5 +294,62 @@ public class Day09Test {
                 168612228L);
         long weakness = Collections.max(contiguousSet) + Collections.min(contiguousSet);
         assertThat(weakness).isEqualTo(438559930L);
+
+        ContiguousRange range = findContiguousRange(codes.stream().mapToLong(Long::longValue), encodingError.getAsLong())
+                .orElseThrow();
+        assertThat(range.min() + range.max()).isEqualTo(438559930L);
+    }
+
+    private record ContiguousRange(long start, long end, long min, long max) {
+    }
+
+    /**
+     * Streaming XMAS validator: the last preamble values are kept in a ring buffer and mirrored in a primitive
+     * multiset, so each value is inserted and evicted in O(1) and checked in O(preamble).
+     */
+    private static class XmasValidator {
+        private final long[] window;
+        private final LongMemory counts;
+        private long accepted;
+
+        public XmasValidator(int preamble) {
+            if (preamble <= 0) {
+                throw new IllegalStateException("Invalid preamble: " + preamble);
+            }
+            window = new long[preamble];
+            counts = new LongMemory(preamble, Long.MIN_VALUE);
+        }
+
+        /**
+         * Returns false if value is past the preamble and is not the sum of two values of the window.
+         */
+        public boolean accept(long value) {
+            int slot = (int) (accepted % window.length);
+            if (accepted >= window.length) {
+                if (!isSumOfTwo(value)) {
+                    return false;
+                }
+                long evicted = window[slot];
+                if (counts.addLong(evicted, -1) == 0) {
+                    counts.remove(evicted);
+                }
+            }
+
+            window[slot] = value;
+            counts.addLong(value, 1);
+            accepted++;
+            return true;
+        }
+
+        private boolean isSumOfTwo(long value) {
+            for (long v : window) {
+                long complement = value - v;
+                long count = counts.getOrDefault(complement, 0);
+                if (count > (complement == v ? 1 : 0)) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
@@ -7,75 +7,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class Day10Test {
     private static final Logger LOGGER = LoggerFactory.getLogger(Day10Test.class);
 
-    private static long arrangements(long n, Map<Long, Long> cache) {
-        if (n < 0) {
-            return 0;
-        } else if (n == 0) {
-            return 1;
-        }
-
-        Long value = cache.get(n);
-        if (value != null) {
-            return value;
-        }
-
-        value = arrangements(n - 1, cache) + arrangements(n - 2, cache) + arrangements(n - 3, cache);
-        cache.put(n, value);
-        return value;
-    }
-
     private static Pair<Integer, Integer> jolterAdapter(List<Long> adapters) {
-        adapters = new ArrayList<>(adapters);
-        Collections.sort(adapters);
-        adapters.add(0, 0L);
-        adapters.add(adapters.get(adapters.size() - 1) + 3);
-
-        int[] diffs = new int[10];
-
-        for (int i = 1; i < adapters.size(); i++) {
-            long diff = adapters.get(i) - adapters.get(i - 1);
-            // LOGGER.info("{} diff {}-{}", diff, adapters.get(i), adapters.get(i - 1));
-            diffs[(int) diff]++;
-        }
-
-        LOGGER.info("diffs = {}", diffs);
-        return Pair.of(diffs[1], diffs[3]);
+        AdapterReport<Long> report = AdapterChain.of(adapters.stream().mapToInt(Long::intValue)).report();
+        LOGGER.info("diffs = {}", report.histogram());
+        return Pair.of(report.histogram()[1], report.histogram()[3]);
     }
 
     private static long adapterArrangements(List<Long> adapters) {
-        adapters = new ArrayList<>(adapters);
-        Collections.sort(adapters);
-        adapters.add(0, 0L);
-        adapters.add(adapters.get(adapters.size() - 1) + 3);
-
-        Map<Long, Long> cache = new HashMap<>();
-
-        long result = 1;
-        long count = 0;
-        for (int i = 1; i < adapters.size(); i++) {
-            long diff = adapters.get(i) - adapters.get(i - 1);
-            // LOGGER.info("{} diff {}-{}", diff, adapters.get(i), adapters.get(i - 1));
-            if (diff == 1) {
-                ++count;
-            } else {
-                result *= arrangements(count, cache);
-                count = 0;
-            }
-        }
-
-        return result;
+        return AdapterChain.of(adapters.stream().mapToInt(Long::intValue)).report().arrangements();
     }
 
     @Test
@@ -144,6 +97,82 @@ public class Day10Test {
         assertThat(adapterArrangements(adapters)).isEqualTo(19208);
     }
 
+    @Test
+    void testAdapterChainOverflow() {
+        // Consecutive adapters 1..n give the tribonacci numbers 1, 1, 2, 4, 7, 13, ...
+        assertThat(AdapterChain.of(IntStream.rangeClosed(1, 4)).report().arrangements()).isEqualTo(7L);
+        assertThat(AdapterChain.of(IntStream.rangeClosed(1, 5)).report().histogram()).containsExactly(0, 5, 0, 1);
+
+        // Largest count that fits in a long, above 2^62
+        AdapterChain longest = AdapterChain.of(IntStream.rangeClosed(1, 72));
+        assertThat(longest.report().arrangements()).isEqualTo(7015254043203144209L);
+        assertThat(longest.bigArrangements()).isEqualTo(BigInteger.valueOf(7015254043203144209L));
+        assertThatThrownBy(() -> AdapterChain.of(IntStream.rangeClosed(1, 73)).report())
+                .isInstanceOf(ArithmeticException.class);
+
+        AdapterChain chain = AdapterChain.of(IntStream.rangeClosed(1, 200));
+        assertThatThrownBy(chain::report).isInstanceOf(ArithmeticException.class);
+
+        BigInteger arrangements = chain.bigArrangements();
+        assertThat(arrangements.bitLength()).isGreaterThan(Long.SIZE);
+        long modulus = 1_000_000_007L;
+        assertThat(chain.arrangements(modulus)).isEqualTo(arrangements.mod(BigInteger.valueOf(modulus)).longValue());
+        long largeModulus = 1L << 62;
+        assertThat(chain.arrangements(largeModulus)).isEqualTo(arrangements.mod(BigInteger.valueOf(largeModulus)).longValue());
+    }
+
+    @Test
+    void testJoltagePaths() {
+        // 0-1-2-4, 0-2-4 and 0-1-4, then the device at 7
+        JoltagePaths<Long> paths = JoltagePaths.exact(3);
+        IntStream.of(1, 2, 4).forEach(paths);
+        AdapterReport<Long> report = paths.finish();
+        assertThat(report.arrangements()).isEqualTo(3L);
+        assertThat(report.histogram()).containsExactly(0, 2, 1, 1);
+
+        paths = JoltagePaths.exact(1);
+        IntStream.rangeClosed(1, 5).forEach(paths);
+        assertThat(paths.finish().arrangements()).isEqualTo(1L);
+
+        paths = JoltagePaths.exact(4);
+        IntStream.rangeClosed(1, 4).forEach(paths);
+        assertThat(paths.finish().arrangements()).isEqualTo(8L);
+
+        paths = JoltagePaths.exact(3);
+        IntStream.rangeClosed(1, 3).forEach(paths);
+        assertThat(paths.finish().arrangements()).isEqualTo(AdapterChain.of(IntStream.rangeClosed(1, 3)).report().arrangements());
+
+        JoltagePaths<Long> unsorted = JoltagePaths.exact(3);
+        unsorted.accept(2);
+        assertThatThrownBy(() -> unsorted.accept(1)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> unsorted.accept(6)).isInstanceOf(IllegalStateException.class);
+
+        // Gaps of 2 with a max step of 2: 0-2-4-5, 0-2-3-5, 0-2-3-4-5, then the device at 7
+        JoltagePaths<BigInteger> big = JoltagePaths.big(2);
+        IntStream.of(2, 3, 4, 5).forEach(big);
+        assertThat(big.finish().arrangements()).isEqualTo(BigInteger.valueOf(3));
+        JoltagePaths<Long> modulo = JoltagePaths.modulo(2, 2);
+        IntStream.of(2, 3, 4, 5).forEach(modulo);
+        assertThat(modulo.finish().arrangements()).isEqualTo(1L);
+    }
+
+    @Test
+    void testJoltagePathsStream() {
+        int count = 10_000_000;
+        JoltagePaths<Long> paths = JoltagePaths.exact(3);
+        IntStream.rangeClosed(1, count).map(i -> 3 * i).forEach(paths);
+        AdapterReport<Long> report = paths.finish();
+        assertThat(report.arrangements()).isEqualTo(1L);
+        assertThat(report.histogram()[3]).isEqualTo(count + 1);
+    }
+
+    @Test
+    void testAdapterChainInvalid() {
+        assertThatThrownBy(() -> AdapterChain.of(IntStream.of(1, 2, 2))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> AdapterChain.of(IntStream.of(0, 1))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> AdapterChain.of(IntStream.of(1, 5)).report()).isInstanceOf(IllegalStateException.class);
+    }
+
     /**
      * --- Day 10: Adapter Array ---
      * Patched into the aircraft's data port, you discover weather forecasts of a
@@ -344,4 +373,300 @@ public class Day10Test {
 
         assertThat(adapterArrangements(adapters)).isEqualTo(173625106649344L);
     }
+
+    /**
+     * Joltage differences between consecutive adapters of the full chain, and the number of arrangements.
+     */
+    private record AdapterReport<T>(int[] histogram, T arrangements) {
+    }
+
+    /**
+     * Adapter ratings placed in a bitmap indexed by joltage, so the chain comes out sorted without any comparison.
+     * Walking the set bits once feeds a {@link JoltagePaths} counter, which fills both the difference histogram and
+     * the arrangement count.
+     */
+    private static class AdapterChain {
+        private static final int MAX_STEP = 3;
+
+        private final long[] bitmap;
+        private final int device;
+
+        private AdapterChain(long[] bitmap, int device) {
+            this.bitmap = bitmap;
+            this.device = device;
+        }
+
+        public static AdapterChain of(IntStream ratings) {
+            long[] bitmap = new long[4];
+            int max = 0;
+            for (PrimitiveIterator.OfInt it = ratings.iterator(); it.hasNext(); ) {
+                int rating = it.nextInt();
+                if (rating <= 0) {
+                    throw new IllegalStateException("Invalid adapter rating: " + rating);
+                }
+                int word = rating >>> 6;
+                if (word >= bitmap.length) {
+                    bitmap = Arrays.copyOf(bitmap, Math.max(bitmap.length * 2, word + 1));
+                }
+                long bit = 1L << rating;
+                if ((bitmap[word] & bit) != 0) {
+                    throw new IllegalStateException("Duplicate adapter rating: " + rating);
+                }
+                bitmap[word] |= bit;
+                max = Math.max(max, rating);
+            }
+            return new AdapterChain(bitmap, max + MAX_STEP);
+        }
+
+        /**
+         * Difference histogram and arrangement count in one pass.
+         *
+         * @throws ArithmeticException if the arrangement count does not fit in a long
+         */
+        public AdapterReport<Long> report() {
+            return run(JoltagePaths.exact(MAX_STEP));
+        }
+
+        /**
+         * Arrangement count without any overflow.
+         */
+        public BigInteger bigArrangements() {
+            return run(JoltagePaths.big(MAX_STEP)).arrangements();
+        }
+
+        /**
+         * Arrangement count modulo {@code modulus}.
+         */
+        public long arrangements(long modulus) {
+            return run(JoltagePaths.modulo(MAX_STEP, modulus)).arrangements();
+        }
+
+        private <T> AdapterReport<T> run(JoltagePaths<T> paths) {
+            forEachAdapter(paths);
+            return paths.finish();
+        }
+
+        /**
+         * Adapter ratings in ascending order, without the outlet and the device.
+         */
+        public void forEachAdapter(IntConsumer consumer) {
+            for (int joltage = next(0); joltage < device; joltage = next(joltage)) {
+                consumer.accept(joltage);
+            }
+        }
+
+        /**
+         * Next joltage of the chain after {@code joltage}, ending with the device, then -1.
+         */
+        private int next(int joltage) {
+            if (joltage >= device) {
+                return -1;
+            }
+            int from = joltage + 1;
+            int word = from >>> 6;
+            if (word < bitmap.length) {
+                long bits = bitmap[word] & (-1L << from);
+                while (true) {
+                    if (bits != 0) {
+                        return (word << 6) + Long.numberOfTrailingZeros(bits);
+                    }
+                    if (++word == bitmap.length) {
+                        break;
+                    }
+                    bits = bitmap[word];
+                }
+            }
+            return device;
+        }
+    }
+
+    /**
+     * Streaming path counter for ratings given in ascending order, with any maximum step. Only the adapters within
+     * {@code maxStep} jolts of the latest one are kept, in a ring buffer along with the running sum of their ways, so
+     * each rating costs amortized constant time and memory stays O(maxStep). Subclasses store the ways as exact longs,
+     * residues or BigIntegers.
+     * <p>
+     * The running sum leaves out the latest adapter until the next rating arrives, and stale adapters are evicted
+     * before it is added back. That way the sum never exceeds the ways of the adapter being pushed.
+     */
+    private abstract static class JoltagePaths<T> implements IntConsumer {
+        private final int maxStep;
+        private final int[] joltages;
+        private final int[] histogram;
+        private int head = 0;
+        private int size = 0;
+        private int last = 0;
+
+        JoltagePaths(int maxStep) {
+            if (maxStep <= 0) {
+                throw new IllegalStateException("Invalid max step: " + maxStep);
+            }
+            this.maxStep = maxStep;
+            this.joltages = new int[maxStep + 1];
+            this.histogram = new int[maxStep + 1];
+            // The outlet sits in slot 0, subclasses give it a single way
+            size = 1;
+        }
+
+        /**
+         * Counts paths exactly in a long, failing on overflow.
+         */
+        public static JoltagePaths<Long> exact(int maxStep) {
+            return new LongPaths(maxStep, 0);
+        }
+
+        /**
+         * Counts paths modulo {@code modulus}, which must be between 1 and 2^62.
+         */
+        public static JoltagePaths<Long> modulo(int maxStep, long modulus) {
+            if (modulus <= 0 || modulus > 1L << 62) {
+                throw new IllegalStateException("Invalid modulus: " + modulus);
+            }
+            return new LongPaths(maxStep, modulus);
+        }
+
+        /**
+         * Counts paths exactly, without any overflow.
+         */
+        public static JoltagePaths<BigInteger> big(int maxStep) {
+            return new BigPaths(maxStep);
+        }
+
+        /**
+         * @throws ArithmeticException if the path count of an {@link #exact(int)} counter does not fit in a long
+         */
+        @Override
+        public void accept(int joltage) {
+            int step = joltage - last;
+            if (step <= 0) {
+                throw new IllegalStateException("Ratings must be strictly increasing: " + joltage + " after " + last);
+            }
+            if (step > maxStep) {
+                throw new IllegalStateException("No adapter between " + last + " and " + joltage);
+            }
+            histogram[step]++;
+
+            // The latest adapter is within maxStep, so it is never evicted here
+            while (joltages[head] < joltage - maxStep) {
+                evict(head);
+                head = head + 1 == joltages.length ? 0 : head + 1;
+                size--;
+            }
+            include(slot(size - 1));
+
+            int tail = slot(size);
+            joltages[tail] = joltage;
+            size++;
+            store(tail);
+            last = joltage;
+        }
+
+        /**
+         * Plugs the device, rated {@code maxStep} above the last adapter, and reports the chain.
+         *
+         * @throws ArithmeticException if the path count of an {@link #exact(int)} counter does not fit in a long
+         */
+        public AdapterReport<T> finish() {
+            accept(last + maxStep);
+            return new AdapterReport<>(histogram.clone(), ways(slot(size - 1)));
+        }
+
+        private int slot(int index) {
+            return (head + index) % joltages.length;
+        }
+
+        /**
+         * Removes the ways of the slot from the running sum.
+         */
+        protected abstract void evict(int slot);
+
+        /**
+         * Adds the ways of the slot to the running sum.
+         */
+        protected abstract void include(int slot);
+
+        /**
+         * Sets the ways of the slot to the running sum.
+         */
+        protected abstract void store(int slot);
+
+        protected abstract T ways(int slot);
+    }
+
+    /**
+     * Ways counted in longs, exactly or modulo a value up to 2^62 so two residues can be summed.
+     */
+    private static class LongPaths extends JoltagePaths<Long> {
+        private final long modulus;
+        private final long[] ways;
+        private long window = 0;
+
+        LongPaths(int maxStep, long modulus) {
+            super(maxStep);
+            this.modulus = modulus;
+            this.ways = new long[maxStep + 1];
+            this.ways[0] = 1;
+        }
+
+        @Override
+        protected void evict(int slot) {
+            window -= ways[slot];
+            if (window < 0) {
+                window += modulus;
+            }
+        }
+
+        @Override
+        protected void include(int slot) {
+            if (modulus == 0) {
+                window = Math.addExact(window, ways[slot]);
+            } else {
+                window = (window + ways[slot]) % modulus;
+            }
+        }
+
+        @Override
+        protected void store(int slot) {
+            ways[slot] = window;
+        }
+
+        @Override
+        protected Long ways(int slot) {
+            return modulus == 0 ? ways[slot] : ways[slot] % modulus;
+        }
+    }
+
+    /**
+     * Ways counted without any overflow.
+     */
+    private static class BigPaths extends JoltagePaths<BigInteger> {
+        private final BigInteger[] ways;
+        private BigInteger window = BigInteger.ZERO;
+
+        BigPaths(int maxStep) {
+            super(maxStep);
+            this.ways = new BigInteger[maxStep + 1];
+            this.ways[0] = BigInteger.ONE;
+        }
+
+        @Override
+        protected void evict(int slot) {
+            window = window.subtract(ways[slot]);
+        }
+
+        @Override
+        protected void include(int slot) {
+            window = window.add(ways[slot]);
+        }
+
+        @Override
+        protected void store(int slot) {
+            ways[slot] = window;
+        }
+
+        @Override
+        protected BigInteger ways(int slot) {
+            return ways[slot];
+        }
+    }
 }
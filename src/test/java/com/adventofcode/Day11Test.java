@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -103,6 +104,22 @@ public class Day11Test {
         return result;
     }
 
+    private static long simulationSeatingSystemBitboard(char[][] grid) {
+        SeatingBitboard bitboard = new SeatingBitboard(grid);
+        while (bitboard.step()) {
+            // Simulate until no seat changes
+        }
+        return bitboard.occupiedSeats();
+    }
+
+    private static long simulationSeatingGraph(char[][] grid, boolean deepSearch) {
+        SeatingGraph graph = new SeatingGraph(grid, deepSearch);
+        while (graph.step()) {
+            // Simulate until no seat changes
+        }
+        return graph.occupiedSeats();
+    }
+
     @Test
     void testSeatingSystem() {
         List<String> inputGrid = List.of(
@@ -121,6 +138,25 @@ public class Day11Test {
 
         assertThat(simulationSeatingSystem(grid, false)).isEqualTo(37);
         assertThat(simulationSeatingSystem(grid, true)).isEqualTo(26);
+        assertThat(simulationSeatingSystemBitboard(grid)).isEqualTo(37);
+        assertThat(simulationSeatingGraph(grid, false)).isEqualTo(37);
+        assertThat(simulationSeatingGraph(grid, true)).isEqualTo(26);
+    }
+
+    @Test
+    void testSeatingSystemBitboard() {
+        Random random = new Random(11);
+        char[][] grid = new char[150][];
+        for (int x = 0; x < grid.length; ++x) {
+            grid[x] = new char[200];
+            for (int y = 0; y < grid[x].length; ++y) {
+                int r = random.nextInt(10);
+                grid[x][y] = r < 3 ? '.' : r < 8 ? 'L' : '#';
+            }
+        }
+
+        assertThat(simulationSeatingSystemBitboard(grid)).isEqualTo(simulationSeatingSystem(grid, false));
+        assertThat(simulationSeatingGraph(grid, true)).isEqualTo(simulationSeatingSystem(grid, true));
     }
 
     @Test
@@ -414,5 +450,229 @@ public class Day11Test {
 
         assertThat(simulationSeatingSystem(grid, false)).isEqualTo(2472);
         assertThat(simulationSeatingSystem(grid, true)).isEqualTo(2197);
+        assertThat(simulationSeatingSystemBitboard(grid)).isEqualTo(2472);
+        assertThat(simulationSeatingGraph(grid, false)).isEqualTo(2472);
+        assertThat(simulationSeatingGraph(grid, true)).isEqualTo(2197);
+    }
+
+    /**
+     * Seat map stored as bit rows, 64 cells per long. Neighbor counts are computed for a whole word at once with a
+     * bit-sliced adder, and the occupancy is double-buffered between steps.
+     */
+    private static class SeatingBitboard {
+        private final int rows;
+        private final int words;
+        private final long[] seats;
+        private long[] occupied;
+        private long[] next;
+
+        public SeatingBitboard(char[][] grid) {
+            rows = grid.length;
+            words = (grid[0].length + 63) >>> 6;
+            seats = new long[rows * words];
+            occupied = new long[rows * words];
+            next = new long[rows * words];
+            for (int x = 0; x < rows; ++x) {
+                for (int y = 0; y < grid[x].length; ++y) {
+                    long bit = 1L << y;
+                    int index = x * words + (y >>> 6);
+                    if (grid[x][y] != '.') {
+                        seats[index] |= bit;
+                    }
+                    if (grid[x][y] == '#') {
+                        occupied[index] |= bit;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Performs one step and returns whether any seat changed.
+         */
+        public boolean step() {
+            boolean changed = false;
+            for (int x = 0; x < rows; ++x) {
+                for (int w = 0; w < words; ++w) {
+                    long count0 = 0;
+                    long count1 = 0;
+                    long atLeast4 = 0;
+                    for (int dx = -1; dx <= 1; ++dx) {
+                        int row = x + dx;
+                        if (row < 0 || row >= rows) {
+                            continue;
+                        }
+                        int base = row * words;
+                        long current = occupied[base + w];
+                        long previous = w > 0 ? occupied[base + w - 1] : 0;
+                        long following = w + 1 < words ? occupied[base + w + 1] : 0;
+
+                        long left = (current << 1) | (previous >>> 63);
+                        long right = (current >>> 1) | (following << 63);
+
+                        long carry = count0 & left;
+                        count0 ^= left;
+                        atLeast4 |= count1 & carry;
+                        count1 ^= carry;
+
+                        carry = count0 & right;
+                        count0 ^= right;
+                        atLeast4 |= count1 & carry;
+                        count1 ^= carry;
+
+                        if (dx != 0) {
+                            carry = count0 & current;
+                            count0 ^= current;
+                            atLeast4 |= count1 & carry;
+                            count1 ^= carry;
+                        }
+                    }
+
+                    int index = x * words + w;
+                    long occupiedWord = occupied[index];
+                    long none = ~(count0 | count1 | atLeast4);
+                    long nextWord = seats[index] & ((occupiedWord & ~atLeast4) | (~occupiedWord & none));
+                    next[index] = nextWord;
+                    changed |= nextWord != occupiedWord;
+                }
+            }
+
+            long[] swap = occupied;
+            occupied = next;
+            next = swap;
+            return changed;
+        }
+
+        public long occupiedSeats() {
+            long result = 0;
+            for (long word : occupied) {
+                result += Long.bitCount(word);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Seat map preprocessed into a CSR graph: the neighbors of seat i are neighbors[offsets[i]..offsets[i + 1]), either
+     * the adjacent seats or the first seat visible in each direction. Each step only re-evaluates the seats next to a
+     * seat that changed in the previous step.
+     */
+    private static class SeatingGraph {
+        private final int tolerance;
+        private final int[] offsets;
+        private final int[] neighbors;
+        private final boolean[] occupied;
+
+        private int[] dirty;
+        private int dirtyCount;
+        private int[] nextDirty;
+        private final int[] dirtyStamp;
+        private final int[] flips;
+        private int stamp;
+
+        public SeatingGraph(char[][] grid, boolean deepSearch) {
+            tolerance = 4 + (deepSearch ? 1 : 0);
+            int lengthX = grid.length;
+            int lengthY = grid[0].length;
+
+            int[][] ids = new int[lengthX][lengthY];
+            int seatCount = 0;
+            for (int x = 0; x < lengthX; ++x) {
+                for (int y = 0; y < lengthY; ++y) {
+                    ids[x][y] = grid[x][y] == '.' ? -1 : seatCount++;
+                }
+            }
+
+            occupied = new boolean[seatCount];
+            offsets = new int[seatCount + 1];
+            int[] edges = new int[seatCount * ADJACENT_SEATS.size()];
+            int edgeCount = 0;
+            for (int x0 = 0; x0 < lengthX; ++x0) {
+                for (int y0 = 0; y0 < lengthY; ++y0) {
+                    int id = ids[x0][y0];
+                    if (id < 0) {
+                        continue;
+                    }
+                    occupied[id] = grid[x0][y0] == '#';
+                    for (Pair<Integer, Integer> delta : ADJACENT_SEATS) {
+                        int dx = delta.getLeft();
+                        int dy = delta.getRight();
+                        int x = x0 + dx;
+                        int y = y0 + dy;
+                        while (deepSearch && x >= 0 && x < lengthX && y >= 0 && y < lengthY && ids[x][y] < 0) {
+                            x += dx;
+                            y += dy;
+                        }
+                        if (x >= 0 && x < lengthX && y >= 0 && y < lengthY && ids[x][y] >= 0) {
+                            edges[edgeCount++] = ids[x][y];
+                        }
+                    }
+                    offsets[id + 1] = edgeCount;
+                }
+            }
+            neighbors = Arrays.copyOf(edges, edgeCount);
+
+            dirty = new int[seatCount];
+            nextDirty = new int[seatCount];
+            dirtyStamp = new int[seatCount];
+            flips = new int[seatCount];
+            for (int i = 0; i < seatCount; ++i) {
+                dirty[i] = i;
+            }
+            dirtyCount = seatCount;
+        }
+
+        /**
+         * Performs one step and returns whether any seat changed.
+         */
+        public boolean step() {
+            int flipCount = 0;
+            for (int d = 0; d < dirtyCount; ++d) {
+                int seat = dirty[d];
+                int count = 0;
+                for (int e = offsets[seat], end = offsets[seat + 1]; e < end; ++e) {
+                    if (occupied[neighbors[e]]) {
+                        count++;
+                    }
+                }
+                if (occupied[seat] ? count >= tolerance : count == 0) {
+                    flips[flipCount++] = seat;
+                }
+            }
+
+            stamp++;
+            int nextCount = 0;
+            for (int f = 0; f < flipCount; ++f) {
+                int seat = flips[f];
+                occupied[seat] = !occupied[seat];
+                nextCount = markDirty(seat, nextCount);
+                for (int e = offsets[seat], end = offsets[seat + 1]; e < end; ++e) {
+                    nextCount = markDirty(neighbors[e], nextCount);
+                }
+            }
+
+            int[] swap = dirty;
+            dirty = nextDirty;
+            nextDirty = swap;
+            dirtyCount = nextCount;
+            return flipCount > 0;
+        }
+
+        public long occupiedSeats() {
+            long result = 0;
+            for (boolean seat : occupied) {
+                if (seat) {
+                    result++;
+                }
+            }
+            return result;
+        }
+
+        private int markDirty(int seat, int count) {
+            if (dirtyStamp[seat] != stamp) {
+                dirtyStamp[seat] = stamp;
+                nextDirty[count++] = seat;
+            }
+            return count;
+        }
     }
 }
@@ -1,114 +1,32 @@
 package com.adventofcode;
 
 import com.adventofcode.utils.FileUtils;
-import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class Day12Test {
     private static final Logger LOGGER = LoggerFactory.getLogger(Day12Test.class);
 
-    private static PositionWaypoint move(PositionWaypoint position, String action) {
-        int x = position.x();
-        int y = position.y();
-
-        int waypointX = position.waypointX();
-        int waypointY = position.waypointY();
-
-        char type = action.charAt(0);
-        int value = Integer.parseInt(action.substring(1));
-        switch (type) {
-            case 'N' -> waypointY += value;
-            case 'S' -> waypointY -= value;
-            case 'E' -> waypointX += value;
-            case 'W' -> waypointX -= value;
-            case 'L' -> {
-                Pair<Integer, Integer> waypoint = turnLeft(waypointX, waypointY, value);
-                waypointX = waypoint.getLeft();
-                waypointY = waypoint.getRight();
-            }
-            case 'R' -> {
-                Pair<Integer, Integer> waypoint = turnRight(waypointX, waypointY, value);
-                waypointX = waypoint.getLeft();
-                waypointY = waypoint.getRight();
-            }
-            case 'F' -> {
-                x += waypointX * value;
-                y += waypointY * value;
-            }
-            default -> throw new IllegalStateException("Unknown action : " + type);
-        }
-
-        return new PositionWaypoint(x, y, waypointX, waypointY);
-    }
-
-    private static PositionWaypoint moveWithWaypoint(List<String> actions) {
-        PositionWaypoint position = new PositionWaypoint(0, 0, 10, 1);
-        for (String action : actions) {
-            position = move(position, action);
-            LOGGER.debug("Position after move {}: {}", action, position);
-        }
-
-        return position;
-    }
-
-    private static Pair<Integer, Integer> turnLeft(int x, int y, int angle) {
-        return switch (angle) {
-            case 90 -> Pair.of(-y, x);
-            case 180 -> Pair.of(-x, -y);
-            case 270 -> Pair.of(y, -x);
-            default -> throw new IllegalStateException("Cannot turn left : " + angle);
-        };
+    private static int moveWithDirection(List<String> actions) {
+        Navigator navigator = Navigator.compile(actions);
+        navigator.run(false);
+        LOGGER.info("Last position {},{}", navigator.x(), navigator.y());
+        return navigator.manhattanDistance();
     }
 
-    private static Pair<Integer, Integer> turnRight(int x, int y, int angle) {
-        return switch (angle) {
-            case 90 -> Pair.of(y, -x);
-            case 180 -> Pair.of(-x, -y);
-            case 270 -> Pair.of(-y, x);
-            default -> throw new IllegalStateException("Cannot turn right : " + angle);
-        };
-    }
-
-    private static PositionDirection move(PositionDirection position, String action) {
-        Direction direction = position.d();
-        int x = position.x();
-        int y = position.y();
-
-        char type = action.charAt(0);
-        int value = Integer.parseInt(action.substring(1));
-        switch (type) {
-            case 'N' -> y += value;
-            case 'S' -> y -= value;
-            case 'E' -> x += value;
-            case 'W' -> x -= value;
-            case 'L' -> direction = direction.turnLeft(value);
-            case 'R' -> direction = direction.turnRight(value);
-            case 'F' -> {
-                Pair<Integer, Integer> move = direction.move(x, y, value);
-                x = move.getLeft();
-                y = move.getRight();
-            }
-            default -> throw new IllegalStateException("Unknown action : " + type);
-        }
-
-        return new PositionDirection(direction, x, y);
-    }
-
-    private static PositionDirection moveWithDirection(List<String> actions) {
-        PositionDirection position = new PositionDirection(Direction.EAST, 0, 0);
-        for (String action : actions) {
-            position = move(position, action);
-            LOGGER.debug("Position after move {}: {}", action, position);
-        }
-
-        return position;
+    private static int moveWithWaypoint(List<String> actions) {
+        Navigator navigator = Navigator.compile(actions);
+        navigator.run(true);
+        LOGGER.info("Last position {},{}", navigator.x(), navigator.y());
+        return navigator.manhattanDistance();
     }
 
     @Test
@@ -119,9 +37,7 @@ public class Day12Test {
                 "R90",
                 "F11");
 
-        PositionDirection position = moveWithDirection(actions);
-        LOGGER.info("Last position {}", position);
-        int manhattanDistance = Math.abs(position.x()) + Math.abs(position.y());
+        int manhattanDistance = moveWithDirection(actions);
         assertThat(manhattanDistance).isEqualTo(25);
     }
 
@@ -133,9 +49,7 @@ public class Day12Test {
                 "R90",
                 "F11");
 
-        PositionWaypoint position = moveWithWaypoint(actions);
-        LOGGER.info("Last position {}", position);
-        int manhattanDistance = Math.abs(position.x()) + Math.abs(position.y());
+        int manhattanDistance = moveWithWaypoint(actions);
         assertThat(manhattanDistance).isEqualTo(286);
     }
 
@@ -243,9 +157,7 @@ public class Day12Test {
     void inputRainRisk1() throws IOException {
         List<String> actions = FileUtils.readLines("/day/12/input");
 
-        PositionDirection position = moveWithDirection(actions);
-        LOGGER.info("Last position {}", position);
-        int manhattanDistance = Math.abs(position.x()) + Math.abs(position.y());
+        int manhattanDistance = moveWithDirection(actions);
         assertThat(manhattanDistance).isEqualTo(590);
     }
 
@@ -253,53 +165,168 @@ public class Day12Test {
     void inputRainRisk2() throws IOException {
         List<String> actions = FileUtils.readLines("/day/12/input");
 
-        PositionWaypoint position = moveWithWaypoint(actions);
-        LOGGER.info("Last position {}", position);
-        int manhattanDistance = Math.abs(position.x()) + Math.abs(position.y());
+        int manhattanDistance = moveWithWaypoint(actions);
         assertThat(manhattanDistance).isEqualTo(42013);
     }
 
-    enum Direction {
-        NORTH {
-            @Override
-            public Pair<Integer, Integer> move(int x, int y, int n) {
-                return Pair.of(x, y + n);
-            }
-        },
-        WEST {
-            @Override
-            public Pair<Integer, Integer> move(int x, int y, int n) {
-                return Pair.of(x - n, y);
-            }
-        },
-        SOUTH {
-            @Override
-            public Pair<Integer, Integer> move(int x, int y, int n) {
-                return Pair.of(x, y - n);
-            }
-        },
-        EAST {
-            @Override
-            public Pair<Integer, Integer> move(int x, int y, int n) {
-                return Pair.of(x + n, y);
+    @Test
+    void testNavigatorLongRoute() {
+        // One pass goes around a square and turns a full circle, so it ends where it started, facing the same way,
+        // whatever the mode
+        List<String> loop = List.of("F10", "R90", "F10", "R90", "F10", "R90", "F10", "R90", "N5", "S5", "E7", "W7",
+                "L180", "L180");
+        Navigator single = Navigator.compile(loop);
+        single.run(false);
+        assertThat(single.manhattanDistance()).isZero();
+        single.run(true);
+        assertThat(single.manhattanDistance()).isZero();
+
+        List<String> route = new ArrayList<>();
+        for (int i = 0; i < 300_000; i++) {
+            route.addAll(loop);
+        }
+
+        Navigator navigator = Navigator.compile(route);
+        assertThat(navigator.size()).isEqualTo(4_200_000);
+        navigator.run(false);
+        assertThat(navigator.manhattanDistance()).isZero();
+        navigator.run(true);
+        assertThat(navigator.manhattanDistance()).isZero();
+    }
+
+    @Test
+    void testNavigatorInvalid() {
+        assertThatThrownBy(() -> Navigator.compile(List.of("X10"))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> Navigator.compile(List.of("L45"))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> Navigator.compile(List.of("F"))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> Navigator.compile(List.of("N1a"))).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Navigation instructions decoded once into primitive arrays. Both modes share one loop: the ship moves along a
+     * vector, which is the heading in ship mode and the waypoint in waypoint mode. Turns are quarter turns applied
+     * with precomputed rotation matrices.
+     */
+    private static class Navigator {
+        private static final byte NORTH = 0;
+        private static final byte SOUTH = 1;
+        private static final byte EAST = 2;
+        private static final byte WEST = 3;
+        private static final byte TURN = 4;
+        private static final byte FORWARD = 5;
+
+        // Counterclockwise rotation by n quarter turns is [[COS[n], -SIN[n]], [SIN[n], COS[n]]]
+        private static final int[] COS = {1, 0, -1, 0};
+        private static final int[] SIN = {0, 1, 0, -1};
+
+        private final byte[] ops;
+        private final int[] args;
+
+        private int x;
+        private int y;
+
+        private Navigator(byte[] ops, int[] args) {
+            this.ops = ops;
+            this.args = args;
+        }
+
+        public static Navigator compile(List<String> actions) {
+            int size = actions.size();
+            byte[] ops = new byte[size];
+            int[] args = new int[size];
+            int i = 0;
+            for (String action : actions) {
+                if (action.length() < 2) {
+                    throw new IllegalStateException("Invalid action : " + action);
+                }
+                int value = 0;
+                for (int c = 1; c < action.length(); c++) {
+                    int digit = action.charAt(c) - '0';
+                    if (digit < 0 || digit > 9) {
+                        throw new IllegalStateException("Invalid action : " + action);
+                    }
+                    value = value * 10 + digit;
+                }
+
+                char type = action.charAt(0);
+                switch (type) {
+                    case 'N' -> ops[i] = NORTH;
+                    case 'S' -> ops[i] = SOUTH;
+                    case 'E' -> ops[i] = EAST;
+                    case 'W' -> ops[i] = WEST;
+                    case 'L', 'R' -> {
+                        if (value % 90 != 0) {
+                            throw new IllegalStateException("Cannot turn : " + action);
+                        }
+                        ops[i] = TURN;
+                        int quarters = (value / 90) & 3;
+                        value = type == 'L' ? quarters : (4 - quarters) & 3;
+                    }
+                    case 'F' -> ops[i] = FORWARD;
+                    default -> throw new IllegalStateException("Unknown action : " + type);
+                }
+                args[i++] = value;
             }
-        };
+            return new Navigator(ops, args);
+        }
 
-        public Direction turnLeft(int n) {
-            return values()[(ordinal() + n / 90) % 4];
+        public int size() {
+            return ops.length;
         }
 
-        public Direction turnRight(int n) {
-            return values()[(ordinal() + 4 - n / 90) % 4];
+        /**
+         * Runs the whole route from the origin, facing east in ship mode or with the waypoint at 10,1.
+         */
+        public void run(boolean waypoint) {
+            int shipX = 0;
+            int shipY = 0;
+            int vectorX = waypoint ? 10 : 1;
+            int vectorY = waypoint ? 1 : 0;
+
+            for (int i = 0; i < ops.length; i++) {
+                int value = args[i];
+                int dx = 0;
+                int dy = 0;
+                switch (ops[i]) {
+                    case NORTH -> dy = value;
+                    case SOUTH -> dy = -value;
+                    case EAST -> dx = value;
+                    case WEST -> dx = -value;
+                    case TURN -> {
+                        int cos = COS[value];
+                        int sin = SIN[value];
+                        int rotatedX = vectorX * cos - vectorY * sin;
+                        vectorY = vectorX * sin + vectorY * cos;
+                        vectorX = rotatedX;
+                    }
+                    default -> {
+                        shipX += vectorX * value;
+                        shipY += vectorY * value;
+                    }
+                }
+                if (waypoint) {
+                    vectorX += dx;
+                    vectorY += dy;
+                } else {
+                    shipX += dx;
+                    shipY += dy;
+                }
+            }
 
+            x = shipX;
+            y = shipY;
         }
 
-        public abstract Pair<Integer, Integer> move(int x, int y, int n);
-    }
+        public int x() {
+            return x;
+        }
 
-    private static record PositionWaypoint(int x, int y, int waypointX, int waypointY) {
-    }
+        public int y() {
+            return y;
+        }
 
-    private static record PositionDirection(Direction d, int x, int y) {
+        public int manhattanDistance() {
+            return Math.abs(x) + Math.abs(y);
+        }
     }
 }
@@ -1,16 +1,13 @@
 package com.adventofcode;
 
+import com.adventofcode.memory.FloatingMemory;
+import com.adventofcode.memory.LongMemory;
 import com.adventofcode.utils.FileUtils;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,43 +34,18 @@ public class Day14Test {
         return bitSet.toLongArray()[0];
     }
 
-    private static Set<Long> applyAddressMask(String mask, long address) {
-        BitSet bitSet = BitSet.valueOf(new long[]{address});
-        List<Integer> Xs = new ArrayList<>();
+    private static long bitsOf(String mask, char c) {
+        long bits = 0;
         for (int n = 0; n < mask.length(); ++n) {
-            switch (mask.charAt(n)) {
-
-                case '1':
-                    bitSet.set(n, true);
-                    break;
-                case 'X':
-                    bitSet.set(n, false);
-                    Xs.add(n);
-                    break;
-                default:
-                case '0':
-
-                    break;
-            }
-        }
-
-        Set<Long> addresses = new HashSet<>();
-        addresses.add(bitSet.cardinality() != 0 ? bitSet.toLongArray()[0] : 0);
-        for (Integer x : Xs) {
-            long indMask = 1L << x;
-            Set<Long> newAddresses = new HashSet<>(addresses);
-            for (Long a : addresses) {
-                newAddresses.add(a | indMask);
+            if (mask.charAt(n) == c) {
+                bits |= 1L << n;
             }
-
-            addresses = newAddresses;
         }
-
-        return addresses;
+        return bits;
     }
 
     private static long runDockingDataProgram1(List<String> programs) {
-        Map<Integer, Long> memory = new HashMap<>();
+        LongMemory memory = new LongMemory();
         String currentMask = null;
         for (String line : programs) {
             Matcher matcher = MASK_PATTERN.matcher(line);
@@ -90,23 +62,29 @@ public class Day14Test {
                 long value = Long.parseLong(matcher.group(2));
 
                 value = applyMask(currentMask, value);
-                memory.put(address, value);
+                memory.putLong(address, value);
             }
         }
 
-        return memory.values().stream().mapToLong(t -> t).sum();
+        return memory.sum();
     }
 
 
     private static long runDockingDataProgram2(List<String> programs) {
-        Map<Long, Long> memory = new HashMap<>();
-        String currentMask = null;
+        return runDockingDataProgram2(programs, false);
+    }
+
+    private static long runDockingDataProgram2(List<String> programs, boolean symbolic) {
+        LongMemory memory = new LongMemory();
+        FloatingMemory floatingMemory = new FloatingMemory();
+        long ones = 0;
+        long floating = 0;
         for (String line : programs) {
             Matcher matcher = MASK_PATTERN.matcher(line);
             if (matcher.find()) {
-                StringBuilder sb = new StringBuilder(matcher.group(1));
-                sb = sb.reverse();
-                currentMask = sb.toString();
+                String currentMask = new StringBuilder(matcher.group(1)).reverse().toString();
+                ones = bitsOf(currentMask, '1');
+                floating = bitsOf(currentMask, 'X');
                 continue;
             }
 
@@ -115,14 +93,24 @@ public class Day14Test {
                 long address = Long.parseLong(matcher.group(1));
                 long value = Long.parseLong(matcher.group(2));
 
-                Set<Long> addresses = applyAddressMask(currentMask, address);
-                for (Long a : addresses) {
-                    memory.put(a, value);
+                long base = (address | ones) & ~floating;
+                if (symbolic) {
+                    floatingMemory.write(base, floating, value);
+                    continue;
+                }
+
+                long subset = floating;
+                while (true) {
+                    memory.putLong(base | subset, value);
+                    if (subset == 0) {
+                        break;
+                    }
+                    subset = (subset - 1) & floating;
                 }
             }
         }
 
-        return memory.values().stream().mapToLong(t -> t).sum();
+        return symbolic ? floatingMemory.sum() : memory.sum();
     }
 
     @Test
@@ -144,6 +132,29 @@ public class Day14Test {
                 "mem[26] = 1");
 
         assertThat(runDockingDataProgram2(programs)).isEqualTo(208);
+        assertThat(runDockingDataProgram2(programs, true)).isEqualTo(208);
+    }
+
+    @Test
+    void testDockingDataSymbolic() {
+        List<String> programs = List.of("mask = 0000000000000000000X0XX0XXXX1XXX0X1X",
+                "mem[42] = 100",
+                "mem[7] = 3",
+                "mask = 0000000000000000000XXXXXXXX1XXXXX00X",
+                "mem[26] = 1",
+                "mask = 0000000000000000000000XXXXXXXXXXXXXX",
+                "mem[8] = 1000",
+                "mask = 000000000000000000000000000000000000",
+                "mem[8] = 0");
+
+        assertThat(runDockingDataProgram2(programs, true)).isEqualTo(runDockingDataProgram2(programs, false));
+
+        List<String> largePrograms = List.of("mask = 000000XXXXXXXXXXXXXXXXXXXXXXXXXXXXXX",
+                "mem[0] = 1",
+                "mask = 0000000000000000XXXXXXXXXXXXXXXXXXXX",
+                "mem[0] = 5");
+
+        assertThat(runDockingDataProgram2(largePrograms, true)).isEqualTo((1L << 30) + 4 * (1L << 20));
     }
 
     /**
@@ -296,5 +307,6 @@ public class Day14Test {
         assertThat(runDockingDataProgram1(programs)).isEqualTo(15403588588538L);
 
         assertThat(runDockingDataProgram2(programs)).isEqualTo(3260587250457L);
+        assertThat(runDockingDataProgram2(programs, true)).isEqualTo(3260587250457L);
     }
 }
@@ -1,11 +1,14 @@
 package com.adventofcode;
 
-import com.adventofcode.memory.IntMemory;
+import com.adventofcode.memory.OpenIntIntMap;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -13,39 +16,9 @@ public class Day15Test {
     private static final Logger LOGGER = LoggerFactory.getLogger(Day15Test.class);
 
     long memoryGame(String input, int turn) {
-        IntMemory lastMemory = new IntMemory(turn * 2);
-        IntMemory previousMemory = new IntMemory(turn * 2);
-
         int[] startingNumbers = Arrays.stream(input.split(",")).mapToInt(Integer::parseInt).toArray();
-        int n = 1;
-        int lastNumberSpoken = -1;
-        boolean newNumber = false;
-        for (; n <= startingNumbers.length; ++n) {
-            lastNumberSpoken = startingNumbers[n - 1];
-
-            LOGGER.trace("Turn {}, spoken number {}", n, lastNumberSpoken);
-
-            Integer last = lastMemory.put(lastNumberSpoken, n);
-            newNumber = last == null;
-            if (last != null) {
-                previousMemory.put(lastNumberSpoken, last);
-            }
-        }
-        for (; n <= turn; ++n) {
-            if (newNumber) {
-                lastNumberSpoken = 0;
-            } else {
-                lastNumberSpoken = lastMemory.get(lastNumberSpoken) - previousMemory.get(lastNumberSpoken);
-            }
-
-            LOGGER.trace("Turn {}, spoken number {}", n, lastNumberSpoken);
-
-            Integer last = lastMemory.put(lastNumberSpoken, n);
-            newNumber = last == null;
-            if (last != null) {
-                previousMemory.put(lastNumberSpoken, last);
-            }
-        }
+        int lastNumberSpoken = new MemoryGame(turn).play(startingNumbers, turn, spoken -> {
+        });
 
         LOGGER.info("memoryGame({}, {}) = {}", input, turn, lastNumberSpoken);
         return lastNumberSpoken;
@@ -70,6 +43,17 @@ public class Day15Test {
         assertThat(memoryGame("3,1,2", 30000000)).isEqualTo(362);
     }
 
+    @Test
+    void testMemoryGameSequence() {
+        List<Integer> spoken = new ArrayList<>();
+        int last = new MemoryGame(4).play(new int[]{0, 3, 6}, 10, spoken::add);
+
+        assertThat(spoken).containsExactly(0, 3, 6, 0, 3, 3, 1, 0, 4, 0);
+        assertThat(last).isZero();
+        assertThat(new MemoryGame(30000000, 16).play(new int[]{0, 3, 6}, 30000000, n -> {
+        })).isEqualTo(175594);
+    }
+
     /**
      * --- Day 15: Rambunctious Recitation ---
      * <p>
@@ -150,4 +134,52 @@ public class Day15Test {
         assertThat(memoryGame("12,20,0,6,1,17,7", 30000000)).isEqualTo(1437692);
     }
 
+    /**
+     * Van Eck sequence engine. Last-seen turns of numbers below the dense limit live in a plain array, the rare
+     * larger numbers in an open-addressing map.
+     */
+    private static class MemoryGame {
+        private static final int DEFAULT_DENSE_LIMIT = 1 << 25;
+
+        private final int[] low;
+        private final OpenIntIntMap high;
+
+        public MemoryGame(int turns) {
+            this(turns, DEFAULT_DENSE_LIMIT);
+        }
+
+        public MemoryGame(int turns, int denseLimit) {
+            low = new int[Math.max(1, Math.min(turns, denseLimit))];
+            high = new OpenIntIntMap(0);
+        }
+
+        /**
+         * Plays until the given turn, sending every spoken number to the consumer, and returns the last one.
+         */
+        public int play(int[] startingNumbers, int turns, IntConsumer consumer) {
+            int turn = 1;
+            for (; turn < startingNumbers.length && turn < turns; ++turn) {
+                consumer.accept(startingNumbers[turn - 1]);
+                speak(startingNumbers[turn - 1], turn);
+            }
+
+            int spoken = startingNumbers[turn - 1];
+            consumer.accept(spoken);
+            for (; turn < turns; ++turn) {
+                int previous = speak(spoken, turn);
+                spoken = previous == 0 ? 0 : turn - previous;
+                consumer.accept(spoken);
+            }
+            return spoken;
+        }
+
+        private int speak(int number, int turn) {
+            if (number < low.length) {
+                int previous = low[number];
+                low[number] = turn;
+                return previous;
+            }
+            return high.putInt(number, turn);
+        }
+    }
 }
@@ -1,150 +1,52 @@
 package com.adventofcode;
 
-import com.adventofcode.map.Point3D;
-import com.adventofcode.map.Point4D;
+import com.adventofcode.memory.LongMemory;
 import com.adventofcode.utils.FileUtils;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class Day17Test {
     private static final Logger LOGGER = LoggerFactory.getLogger(Day17Test.class);
 
-    private static Collection<Point3D> neighbors(Point3D p) {
-        int x = p.x();
-        int y = p.y();
-        int z = p.z();
-
-        List<Point3D> result = new ArrayList<>();
-
-        for (int dx = -1; dx <= 1; ++dx)
-            for (int dy = -1; dy <= 1; ++dy)
-                for (int dz = -1; dz <= 1; ++dz) {
-                    if (dx != 0 || dy != 0 || dz != 0) {
-                        result.add(Point3D.of(x + dx, y + dy, z + dz));
-                    }
-                }
-        return result;
+    private static long runConwayCubes(List<String> initialState, int iteration) {
+        return runConway(initialState, 3, iteration);
     }
 
-    private static Collection<Point4D> neighbors(Point4D p) {
-        int x = p.x();
-        int y = p.y();
-        int z = p.z();
-        int w = p.w();
-
-        List<Point4D> result = new ArrayList<>();
-
-        for (int dx = -1; dx <= 1; ++dx)
-            for (int dy = -1; dy <= 1; ++dy)
-                for (int dz = -1; dz <= 1; ++dz)
-                    for (int dw = -1; dw <= 1; ++dw) {
-                        if (dx != 0 || dy != 0 || dz != 0 || dw != 0) {
-                            result.add(Point4D.of(x + dx, y + dy, z + dz, w + dw));
-                        }
-                    }
-        return result;
+    private static long runConwayHyperCubes(List<String> initialState, int iteration) {
+        return runConway(initialState, 4, iteration);
     }
 
-    private static long runConwayCubes(List<String> initialState, int iteration) {
-        Set<Point3D> state = new HashSet<>();
-
-        for (int y = 0, initialStateSize = initialState.size(); y < initialStateSize; y++) {
-            char[] line = initialState.get(y).toCharArray();
-            for (int x = 0, lineLength = line.length; x < lineLength; x++) {
-                char c = line[x];
-                if (c == '#') {
-                    state.add(Point3D.of(x, y, 0));
-                }
-            }
-        }
-
-        LOGGER.info("initialState: {}", state);
-        for (int i = 1; i <= iteration; ++i) {
-            Set<Point3D> nextState = new HashSet<>();
-            int minX = state.stream().mapToInt(Point3D::x).min().orElseThrow();
-            int minY = state.stream().mapToInt(Point3D::y).min().orElseThrow();
-            int minZ = state.stream().mapToInt(Point3D::z).min().orElseThrow();
-            int maxX = state.stream().mapToInt(Point3D::x).max().orElseThrow();
-            int maxY = state.stream().mapToInt(Point3D::y).max().orElseThrow();
-            int maxZ = state.stream().mapToInt(Point3D::z).max().orElseThrow();
-            for (int x = minX - 1; x <= maxX + 1; ++x) {
-                for (int y = minY - 1; y <= maxY + 1; ++y) {
-                    for (int z = minZ - 1; z <= maxZ + 1; ++z) {
-                        Point3D position = Point3D.of(x, y, z);
-                        long count = neighbors(position).stream().filter(state::contains).count();
-                        if (state.contains(position)) {
-                            if (count == 2 || count == 3) {
-                                nextState.add(position);
-                            }
-                        } else if (count == 3) {
-                            nextState.add(position);
-                        }
-                    }
-                }
-            }
-
-            state = nextState;
-            // LOGGER.info("State at {}: {}", i, state);
-        }
-        return state.size();
+    private static long runConway(List<String> initialState, int dimensions, int iteration) {
+        return runConway(initialState, dimensions, iteration, false);
     }
 
-    private static long runConwayHyperCubes(List<String> initialState, int iteration) {
-        Set<Point4D> state = new HashSet<>();
+    private static long runConway(List<String> initialState, int dimensions, int iteration, boolean symmetric) {
+        ConwayEngine engine = new ConwayEngine(dimensions, symmetric);
 
+        int[] coordinates = new int[dimensions];
         for (int y = 0, initialStateSize = initialState.size(); y < initialStateSize; y++) {
             char[] line = initialState.get(y).toCharArray();
             for (int x = 0, lineLength = line.length; x < lineLength; x++) {
-                char c = line[x];
-                if (c == '#') {
-                    state.add(Point4D.of(x, y, 0, 0));
+                if (line[x] == '#') {
+                    coordinates[0] = x;
+                    coordinates[1] = y;
+                    engine.add(coordinates);
                 }
             }
         }
 
-        LOGGER.info("initialState: {}", state);
+        LOGGER.info("initialState: {} cells in {} dimensions", engine.size(), dimensions);
         for (int i = 1; i <= iteration; ++i) {
-            Set<Point4D> nextState = new HashSet<>();
-            int minX = state.stream().mapToInt(Point4D::x).min().orElseThrow();
-            int minY = state.stream().mapToInt(Point4D::y).min().orElseThrow();
-            int minZ = state.stream().mapToInt(Point4D::z).min().orElseThrow();
-            int minW = state.stream().mapToInt(Point4D::w).min().orElseThrow();
-            int maxX = state.stream().mapToInt(Point4D::x).max().orElseThrow();
-            int maxY = state.stream().mapToInt(Point4D::y).max().orElseThrow();
-            int maxZ = state.stream().mapToInt(Point4D::z).max().orElseThrow();
-            int maxW = state.stream().mapToInt(Point4D::w).max().orElseThrow();
-            for (int x = minX - 1; x <= maxX + 1; ++x) {
-                for (int y = minY - 1; y <= maxY + 1; ++y) {
-                    for (int z = minZ - 1; z <= maxZ + 1; ++z) {
-                        for (int w = minW - 1; w <= maxW + 1; ++w) {
-                            Point4D position = Point4D.of(x, y, z, w);
-                            long count = neighbors(position).stream().filter(state::contains).count();
-                            if (state.contains(position)) {
-                                if (count == 2 || count == 3) {
-                                    nextState.add(position);
-                                }
-                            } else if (count == 3) {
-                                nextState.add(position);
-                            }
-                        }
-                    }
-                }
-            }
-
-            state = nextState;
-            // LOGGER.info("State at {}: {}", i, state);
+            engine.step();
         }
-        return state.size();
+        return engine.size();
     }
 
     @Test
@@ -155,6 +57,21 @@ public class Day17Test {
 
         assertThat(runConwayCubes(initialState, 6)).isEqualTo(112);
         assertThat(runConwayHyperCubes(initialState, 6)).isEqualTo(848);
+        assertThat(runConway(initialState, 5, 6)).isEqualTo(5760);
+        assertThat(runConway(initialState, 3, 50)).isEqualTo(34158);
+    }
+
+    @Test
+    void testSymmetricConwayCubes() {
+        List<String> initialState = List.of(".#.",
+                "..#",
+                "###");
+
+        assertThat(runConway(initialState, 3, 6, true)).isEqualTo(112);
+        assertThat(runConway(initialState, 4, 6, true)).isEqualTo(848);
+        assertThat(runConway(initialState, 5, 6, true)).isEqualTo(5760);
+        assertThat(runConway(initialState, 3, 50, true)).isEqualTo(34158);
+        assertThat(runConway(initialState, 6, 4, true)).isEqualTo(runConway(initialState, 6, 4, false));
     }
 
     /**
@@ -601,5 +518,153 @@ public class Day17Test {
 
         assertThat(runConwayCubes(initialState, 6)).isEqualTo(215);
         assertThat(runConwayHyperCubes(initialState, 6)).isEqualTo(1728);
+        assertThat(runConway(initialState, 4, 6, true)).isEqualTo(1728);
+    }
+
+    /**
+     * Sparse N-dimensional Game of Life. Live cells are packed in a long, one biased field per dimension, and each
+     * step only visits the neighbors of live cells.
+     * <p>
+     * In symmetric mode every dimension but x and y is assumed mirror-symmetric around 0: only the orthant where those
+     * coordinates are non-negative is stored, neighbor counts are weighted by the number of mirror images they stand
+     * for, and {@link #size()} expands the population back.
+     */
+    private static class ConwayEngine {
+        private static final int SELF = 1 << 16;
+
+        private final int dimensions;
+        private final boolean symmetric;
+        private final int bits;
+        private final int bias;
+        private final long fieldMask;
+        private final long[] neighbors;
+        private final int[] negativeFolded;
+        private final LongMemory counts = new LongMemory();
+
+        private long[] cells = new long[16];
+        private int size;
+
+        public ConwayEngine(int dimensions) {
+            this(dimensions, false);
+        }
+
+        public ConwayEngine(int dimensions, boolean symmetric) {
+            if (dimensions < 2 || dimensions > 8) {
+                throw new IllegalStateException("Unsupported dimensions: " + dimensions);
+            }
+            this.dimensions = dimensions;
+            this.symmetric = symmetric;
+            this.bits = Math.min(21, 64 / dimensions);
+            this.bias = 1 << (bits - 1);
+            this.fieldMask = (1L << bits) - 1;
+
+            int count = 1;
+            for (int i = 0; i < dimensions; ++i) {
+                count *= 3;
+            }
+            neighbors = new long[count - 1];
+            negativeFolded = new int[count - 1];
+            int n = 0;
+            for (int index = 0; index < count; ++index) {
+                long delta = 0;
+                int negative = 0;
+                boolean self = true;
+                for (int i = 0, rest = index; i < dimensions; ++i, rest /= 3) {
+                    int d = rest % 3 - 1;
+                    delta += (long) d << (i * bits);
+                    if (i >= 2 && d < 0) {
+                        negative |= 1 << i;
+                    }
+                    self &= d == 0;
+                }
+                if (!self) {
+                    neighbors[n] = delta;
+                    negativeFolded[n] = negative;
+                    n++;
+                }
+            }
+        }
+
+        public long size() {
+            if (!symmetric) {
+                return size;
+            }
+
+            long population = 0;
+            for (int c = 0; c < size; ++c) {
+                population += 1L << (dimensions - 2 - Integer.bitCount(foldedMask(cells[c], 0)));
+            }
+            return population;
+        }
+
+        public void add(int[] coordinates) {
+            long cell = 0;
+            for (int i = 0; i < dimensions; ++i) {
+                if (symmetric && i >= 2 && coordinates[i] < 0) {
+                    throw new IllegalStateException("Symmetric mode only stores non-negative coordinates: " + coordinates[i]);
+                }
+                cell |= (long) (coordinates[i] + bias) << (i * bits);
+            }
+            append(cell);
+        }
+
+        public void step() {
+            counts.clear();
+            for (int c = 0; c < size; ++c) {
+                long cell = cells[c];
+                checkBounds(cell);
+                counts.addLong(cell, SELF);
+                if (symmetric) {
+                    int zeros = foldedMask(cell, 0);
+                    int ones = foldedMask(cell, 1);
+                    for (int n = 0; n < neighbors.length; ++n) {
+                        int negative = negativeFolded[n];
+                        if ((negative & zeros) == 0) {
+                            counts.addLong(cell + neighbors[n], 1L << Integer.bitCount(negative & ones));
+                        }
+                    }
+                } else {
+                    for (long delta : neighbors) {
+                        counts.addLong(cell + delta, 1);
+                    }
+                }
+            }
+
+            size = 0;
+            counts.forEach((cell, count) -> {
+                if (count == 3 || count == SELF + 2 || count == SELF + 3) {
+                    append(cell);
+                }
+            });
+        }
+
+        /**
+         * Bitmask of the folded dimensions whose coordinate equals value.
+         */
+        private int foldedMask(long cell, int value) {
+            int mask = 0;
+            for (int i = 2; i < dimensions; ++i) {
+                if (((cell >>> (i * bits)) & fieldMask) == value + bias) {
+                    mask |= 1 << i;
+                }
+            }
+            return mask;
+        }
+
+        private void append(long cell) {
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+            }
+            cells[size++] = cell;
+        }
+
+        private void checkBounds(long cell) {
+            for (int i = 0; i < dimensions; ++i) {
+                long field = (cell >>> (i * bits)) & fieldMask;
+                if (field == 0 || field == fieldMask) {
+                    throw new IllegalStateException("Coordinate out of range in dimension " + i);
+                }
+            }
+        }
     }
 }
@@ -1,45 +1,32 @@
 package com.adventofcode;
 
-import com.adventofcode.memory.ObjectMemory;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class Day23Test {
     private static final Logger LOGGER = LoggerFactory.getLogger(Day23Test.class);
 
-    private static String crabCupsPart1(String input, int moves) {
-        List<Integer> cups = new ArrayList<>();
-        for (char c : input.toCharArray()) {
-            cups.add(Character.getNumericValue(c));
-        }
-        CupCircle cupCircle = new CupCircle(cups.stream().mapToInt(t -> t).toArray());
-        for (int move = 1; move <= moves; ++move) {
-            cupCircle.performStep();
+    private static int[] parseCups(String input) {
+        int[] cups = new int[input.length()];
+        for (int i = 0; i < cups.length; i++) {
+            cups[i] = Character.getNumericValue(input.charAt(i));
         }
+        return cups;
+    }
+
+    private static String crabCupsPart1(String input, int moves) {
+        CupCircle cupCircle = new CupCircle(parseCups(input));
+        cupCircle.performSteps(moves);
         LOGGER.info("Result crabCupsPart2({}, {}): {}", input, moves, cupCircle.resultPart1());
         return cupCircle.resultPart1();
     }
 
     private static long crabCupsPart2(String input, int moves, int size) {
-        List<Integer> cups = new ArrayList<>();
-        for (char c : input.toCharArray()) {
-            cups.add(Character.getNumericValue(c));
-        }
-        while (cups.size() < size) {
-            cups.add(cups.size() + 1);
-        }
-        CupCircle cupCircle = new CupCircle(cups.stream().mapToInt(t -> t).toArray());
-        for (int move = 1; move <= moves; ++move) {
-            cupCircle.performStep();
-        }
+        CupCircle cupCircle = new CupCircle(parseCups(input), size);
+        cupCircle.performSteps(moves);
         LOGGER.info("Result crabCupsPart2({}, {}, {}): {}", input, moves, size, cupCircle.resultPart2());
         return cupCircle.resultPart2();
     }
@@ -188,91 +175,73 @@ public class Day23Test {
         assertThat(crabCupsPart2(input, 10_000_000, 1_000_000)).isEqualTo(2000455861L);
     }
 
-    private static class Cup {
-        private final int id;
-        private Cup next = null;
-
-        public Cup(int id) {
-            this.id = id;
-        }
-
-        public int id() {
-            return id;
-        }
-
-        public Cup next() {
-            return next;
-        }
-
-        public void next(Cup next) {
-            this.next = next;
-        }
-    }
-
+    /**
+     * Circle of cups labelled 1..size, stored as a successor array: next[label] is the label of the cup clockwise of
+     * it.
+     */
     private static class CupCircle {
-        private final ObjectMemory<Cup> cups;
-        private final int min;
+        private final int[] next;
         private final int max;
-        private Cup head;
+        private int head;
 
         public CupCircle(int[] cupIndexes) {
-            max = cupIndexes.length;
-            min = 1;
+            this(cupIndexes, cupIndexes.length);
+        }
 
-            cups = new ObjectMemory<>(cupIndexes.length + 1);
-            for (int cupIndex : cupIndexes) {
-                cups.put(cupIndex, new Cup(cupIndex));
-            }
+        public CupCircle(int[] cupIndexes, int size) {
+            max = size;
+            next = new int[size + 1];
 
-            for (int i = 0, cupIndexesLength = cupIndexes.length - 1; i < cupIndexesLength; i++) {
-                cups.get(cupIndexes[i]).next(cups.get(cupIndexes[i + 1]));
+            int previous = cupIndexes[0];
+            for (int i = 1; i < cupIndexes.length; i++) {
+                next[previous] = cupIndexes[i];
+                previous = cupIndexes[i];
+            }
+            for (int cup = cupIndexes.length + 1; cup <= size; cup++) {
+                next[previous] = cup;
+                previous = cup;
             }
 
-            head = cups.get(cupIndexes[0]);
-            cups.get(cupIndexes[cupIndexes.length - 1]).next(head);
+            head = cupIndexes[0];
+            next[previous] = head;
         }
 
-        public void performStep() {
-            Set<Integer> forbidden = new HashSet<>();
-            Cup moveStart = head.next();
-            forbidden.add(moveStart.id());
-
-            Cup moveEnd = moveStart;
-            for (long i = 0; i < 2; i++) {
-                moveEnd = moveEnd.next();
-                forbidden.add(moveEnd.id());
+        public void performSteps(int moves) {
+            for (int move = 0; move < moves; ++move) {
+                performStep();
             }
-            head.next(moveEnd.next());
+        }
 
-            int destination = head.id();
+        public void performStep() {
+            int moveStart = next[head];
+            int moveMiddle = next[moveStart];
+            int moveEnd = next[moveMiddle];
+            next[head] = next[moveEnd];
+
+            int destination = head;
             do {
                 destination -= 1;
-                if (destination < min)
+                if (destination < 1)
                     destination = max;
-            } while (forbidden.contains(destination));
-
-            Cup destinationCup = cups.get(destination);
+            } while (destination == moveStart || destination == moveMiddle || destination == moveEnd);
 
-            moveEnd.next(destinationCup.next());
-            destinationCup.next(moveStart);
-            head = head.next();
+            next[moveEnd] = next[destination];
+            next[destination] = moveStart;
+            head = next[head];
         }
 
         public String resultPart1() {
             StringBuilder stringBuilder = new StringBuilder();
-            for (Cup current = cups.get(1).next(); current.id() != 1; current = current.next()) {
-                stringBuilder.append(current.id());
+            for (int current = next[1]; current != 1; current = next[current]) {
+                stringBuilder.append(current);
             }
             return stringBuilder.toString();
         }
 
         public long resultPart2() {
-            long result = 1;
-            Cup current = cups.get(1).next();
-            result *= current.id();
-            current = current.next();
-            result *= current.id();
-            return result;
+            long first = next[1];
+            long second = next[(int) first];
+            return first * second;
         }
     }
 }
@@ -0,0 +1,77 @@
+package com.adventofcode.handheld;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HandheldVmTest {
+    @Test
+    void testStep() {
+        HandheldVm vm = HandheldVm.compile(List.of("nop +0", "acc +1", "jmp +2", "acc -5", "acc +3"));
+        assertThat(vm.size()).isEqualTo(5);
+        assertThat(vm.op(2)).isEqualTo(HandheldVm.JMP);
+        assertThat(vm.arg(3)).isEqualTo(-5);
+
+        assertThat(vm.step()).isTrue();
+        assertThat(vm.position()).isEqualTo(1);
+        assertThat(vm.step()).isTrue();
+        assertThat(vm.accumulator()).isEqualTo(1);
+        assertThat(vm.step()).isTrue();
+        assertThat(vm.position()).isEqualTo(4);
+        assertThat(vm.step()).isTrue();
+        assertThat(vm.isTerminated()).isTrue();
+        assertThat(vm.step()).isFalse();
+        assertThat(vm.accumulator()).isEqualTo(4);
+    }
+
+    @Test
+    void testRun() {
+        HandheldVm vm = HandheldVm.compile(List.of("acc +2", "jmp -1"));
+        assertThat(vm.runUntilLoop()).isFalse();
+        assertThat(vm.accumulator()).isEqualTo(2);
+        assertThatThrownBy(() -> vm.runToCompletion(1000)).isInstanceOf(IllegalStateException.class);
+
+        int size = 1_000_000;
+        byte[] op = new byte[size];
+        int[] arg = new int[size];
+        for (int i = 0; i < size; i++) {
+            op[i] = HandheldVm.ACC;
+            arg[i] = 1;
+        }
+        HandheldVm large = new HandheldVm(op, arg);
+        large.runToCompletion(Long.MAX_VALUE);
+        assertThat(large.accumulator()).isEqualTo(size);
+        large.reset();
+        assertThat(large.runUntilLoop()).isTrue();
+        assertThat(large.accumulator()).isEqualTo(size);
+    }
+
+    @Test
+    void testRepair() {
+        int size = 100_000;
+        byte[] op = new byte[size];
+        int[] arg = new int[size];
+        for (int i = 0; i < size - 1; i++) {
+            op[i] = i % 2 == 0 ? HandheldVm.ACC : HandheldVm.NOP;
+            arg[i] = i % 2 == 0 ? 1 : 7;
+        }
+        op[size - 1] = HandheldVm.JMP;
+        arg[size - 1] = -(size - 1);
+        op[size - 3] = HandheldVm.JMP;
+        arg[size - 3] = -10;
+        op[size / 2 + 1] = HandheldVm.NOP;
+        arg[size / 2 + 1] = size;
+
+        HandheldVm vm = new HandheldVm(op, arg);
+        assertThat(vm.runUntilLoop()).isFalse();
+
+        int flip = HandheldRepair.findFlip(vm);
+        assertThat(flip).isEqualTo(size / 2 + 1);
+        vm.flip(flip);
+        vm.reset();
+        assertThat(vm.runUntilLoop()).isTrue();
+    }
+}
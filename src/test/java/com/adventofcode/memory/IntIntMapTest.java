@@ -0,0 +1,67 @@
+package com.adventofcode.memory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IntIntMapTest {
+    private static void checkMap(IntIntMap map, int... keys) {
+        assertThat(map.isEmpty()).isTrue();
+        for (int key : keys) {
+            assertThat(map.putInt(key, key + 1)).isEqualTo(map.missingValue());
+        }
+        assertThat(map.size()).isEqualTo(keys.length);
+        for (int key : keys) {
+            assertThat(map.containsKey(key)).isTrue();
+            assertThat(map.getInt(key)).isEqualTo(key + 1);
+            assertThat(map.putInt(key, key + 2)).isEqualTo(key + 1);
+        }
+        assertThat(map.size()).isEqualTo(keys.length);
+        assertThat(map.containsKey(7)).isFalse();
+        assertThat(map.getOrDefault(7, 42)).isEqualTo(42);
+
+        assertThat(map.remove(7)).isEqualTo(map.missingValue());
+        assertThat(map.remove(keys[0])).isEqualTo(keys[0] + 2);
+        assertThat(map.remove(keys[0])).isEqualTo(map.missingValue());
+        assertThat(map.containsKey(keys[0])).isFalse();
+        assertThat(map.size()).isEqualTo(keys.length - 1);
+        for (int i = 1; i < keys.length; i++) {
+            assertThat(map.getInt(keys[i])).isEqualTo(keys[i] + 2);
+        }
+
+        map.clear();
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.getInt(keys[0])).isEqualTo(map.missingValue());
+    }
+
+    @Test
+    void testDenseIntIntMap() {
+        checkMap(new DenseIntIntMap(-1), 0, 1, 2, 3, 100, 4096, 1_000_000);
+
+        DenseIntIntMap map = new DenseIntIntMap(-1);
+        assertThatThrownBy(() -> map.putInt(-5, 1)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> map.putInt(5, -1)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testOpenIntIntMap() {
+        checkMap(new OpenIntIntMap(Integer.MIN_VALUE), 0, -1, 1, Integer.MAX_VALUE - 2, -123456789, 1 << 20, 1 << 30);
+
+        OpenIntIntMap map = new OpenIntIntMap(Integer.MIN_VALUE);
+        for (int i = 0; i < 100_000; i++) {
+            map.putInt(i * 31, i);
+        }
+        assertThat(map.size()).isEqualTo(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(map.getInt(i * 31)).isEqualTo(i);
+        }
+        for (int i = 0; i < 100_000; i += 2) {
+            assertThat(map.remove(i * 31)).isEqualTo(i);
+        }
+        assertThat(map.size()).isEqualTo(50_000);
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(map.getInt(i * 31)).isEqualTo(i % 2 == 0 ? Integer.MIN_VALUE : i);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.adventofcode.memory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongMemoryTest {
+    @Test
+    void testLongMemory() {
+        LongMemory memory = new LongMemory();
+        assertThat(memory.isEmpty()).isTrue();
+
+        long[] keys = {0, 1, -1, 1L << 35, (1L << 36) - 1, Long.MAX_VALUE};
+        for (long key : keys) {
+            assertThat(memory.putLong(key, 10)).isEqualTo(memory.missingValue());
+            assertThat(memory.putLong(key, key & 0xFFFF)).isEqualTo(10);
+        }
+        assertThat(memory.size()).isEqualTo(keys.length);
+        assertThat(memory.containsKey(2)).isFalse();
+        assertThat(memory.getOrDefault(2, 7)).isEqualTo(7);
+        assertThat(memory.getLong(1L << 35)).isZero();
+
+        Map<Long, Long> expected = new HashMap<>();
+        for (long key : keys) {
+            expected.put(key, key & 0xFFFF);
+        }
+        Map<Long, Long> actual = new HashMap<>();
+        memory.forEach(actual::put);
+        assertThat(actual).isEqualTo(expected);
+        assertThat(memory.sum()).isEqualTo(expected.values().stream().mapToLong(t -> t).sum());
+
+        for (long key = 0; key < 200_000; key++) {
+            memory.putLong(key << 12, key);
+        }
+        assertThat(memory.getLong(123_456L << 12)).isEqualTo(123_456L);
+
+        assertThat(memory.addLong(123_456L << 12, 4)).isEqualTo(123_460L);
+        assertThat(memory.addLong(-42, 4)).isEqualTo(4);
+        assertThat(memory.addLong(-42, -1)).isEqualTo(3);
+
+        assertThat(memory.remove(-42)).isEqualTo(3);
+        assertThat(memory.remove(-42)).isEqualTo(memory.missingValue());
+        for (long key = 0; key < 200_000; key += 2) {
+            assertThat(memory.remove(key << 12)).isEqualTo(key == 123_456L ? key + 4 : key);
+        }
+        for (long key = 1; key < 200_000; key += 2) {
+            assertThat(memory.getLong(key << 12)).isEqualTo(key);
+        }
+        assertThat(memory.containsKey(0)).isFalse();
+
+        memory.clear();
+        assertThat(memory.isEmpty()).isTrue();
+        assertThat(memory.sum()).isZero();
+    }
+}
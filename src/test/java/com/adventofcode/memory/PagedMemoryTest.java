@@ -0,0 +1,52 @@
+package com.adventofcode.memory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PagedMemoryTest {
+    @Test
+    void testPagedMemory() {
+        PagedMemory<String> memory = new PagedMemory<>();
+        assertThat(memory.isEmpty()).isTrue();
+
+        assertThat(memory.put(Integer.MAX_VALUE, "max")).isNull();
+        assertThat(memory.put(3, "three")).isNull();
+        assertThat(memory.put(1 << 20, "big")).isNull();
+        assertThat(memory.put(5, null)).isNull();
+        assertThat(memory.put(3, "THREE")).isEqualTo("three");
+
+        assertThat(memory.size()).isEqualTo(4);
+        assertThat(memory.pageCount()).isEqualTo(3);
+        assertThat(memory.containsKey(5)).isTrue();
+        assertThat(memory.containsKey(6)).isFalse();
+        assertThat(memory.get(Integer.MAX_VALUE)).isEqualTo("max");
+        assertThat(memory.getOrDefault(5, "default")).isNull();
+        assertThat(memory.getOrDefault(6, "default")).isEqualTo("default");
+        assertThat(memory.keySet()).containsExactly(3, 5, 1 << 20, Integer.MAX_VALUE);
+        assertThat(memory.values()).containsExactly("THREE", null, "big", "max");
+
+        assertThat(memory.remove(6)).isNull();
+        assertThat(memory.remove(1 << 20)).isEqualTo("big");
+        assertThat(memory.remove(1 << 20)).isNull();
+        assertThat(memory.size()).isEqualTo(3);
+        assertThat(memory.pageCount()).isEqualTo(2);
+        assertThat(memory.remove(3)).isEqualTo("THREE");
+        assertThat(memory.pageCount()).isEqualTo(2);
+        assertThat(memory.remove(5)).isNull();
+        assertThat(memory.pageCount()).isEqualTo(1);
+        assertThat(memory.keySet()).containsExactly(Integer.MAX_VALUE);
+        assertThat(memory.get(Integer.MAX_VALUE)).isEqualTo("max");
+        assertThat(memory.put(4, "four")).isNull();
+        assertThat(memory.keySet()).containsExactly(4, Integer.MAX_VALUE);
+
+        memory.clear();
+        assertThat(memory.isEmpty()).isTrue();
+        assertThat(memory.pageCount()).isZero();
+        assertThat(memory.get(3)).isNull();
+        assertThat(memory.keySet()).isEmpty();
+
+        assertThatThrownBy(() -> memory.put(-1, "negative")).isInstanceOf(IllegalStateException.class);
+    }
+}
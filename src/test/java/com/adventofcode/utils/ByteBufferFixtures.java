@@ -0,0 +1,19 @@
+package com.adventofcode.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Buffers for the tests that exercise the parallel chunking of large inputs.
+ */
+public class ByteBufferFixtures {
+    /**
+     * Buffer holding {@code count} copies of the block, ready to be read.
+     */
+    public static ByteBuffer repeat(byte[] block, int count) {
+        ByteBuffer buffer = ByteBuffer.allocate(block.length * count);
+        for (int i = 0; i < count; i++) {
+            buffer.put(block);
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,37 @@
+package com.adventofcode.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteBufferUtilsTest {
+    @Test
+    void testChunkBounds() {
+        ByteBuffer buffer = ByteBuffer.wrap("a\nbb\nccc\ndddd\n".getBytes(StandardCharsets.US_ASCII));
+
+        assertThat(ByteBufferUtils.chunkBounds(buffer, ByteBufferUtils::nextLine, 3)).containsExactly(0, 5, 14, 14);
+        assertThat(ByteBufferUtils.chunkBounds(buffer, ByteBufferUtils::nextLine, 1)).containsExactly(0, 14);
+    }
+
+    @Test
+    void testReduceChunks() {
+        byte[] line = "0123456789\n".getBytes(StandardCharsets.US_ASCII);
+        int repeat = 200_000;
+        ByteBuffer buffer = ByteBufferFixtures.repeat(line, repeat);
+        assertThat(buffer.remaining()).isEqualTo(line.length * repeat);
+
+        long lines = ByteBufferUtils.reduceChunks(buffer, ByteBufferUtils::nextLine, (b, start, end) -> {
+            long count = 0;
+            for (int i = start; i < end; i++) {
+                if (b.get(i) == '\n') {
+                    count++;
+                }
+            }
+            return count;
+        }, 0L, Long::sum);
+        assertThat(lines).isEqualTo(repeat);
+    }
+}